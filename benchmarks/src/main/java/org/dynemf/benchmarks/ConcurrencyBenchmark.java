@@ -0,0 +1,85 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2016 Vincent Aranega
+ *
+ * See the file LICENSE for copying permission.
+ *******************************************************************************/
+package org.dynemf.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.dynemf.EObjectWrapper;
+import org.dynemf.EPackageWrapper;
+import org.dynemf.ResourceSetWrapper;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EPackage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Stresses a {@link ResourceSetWrapper} shared between threads: readers look
+ * up the {@link EPackageWrapper} and create instances while a writer keeps
+ * re-registering the metamodel. The run fails if two different wrappers are
+ * ever handed out for the same nsURI or if an instantiation fails.
+ *
+ * @author Vincent Aranega
+ *
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConcurrencyBenchmark {
+	private final EPackage[] versions = { Fixtures.synthetic(), Fixtures.synthetic() };
+	private final AtomicReference<EPackageWrapper> first = new AtomicReference<>();
+	private final AtomicInteger duplicates = new AtomicInteger();
+	private ResourceSetWrapper rset;
+	private int version;
+
+	@Setup(Level.Iteration)
+	public void setup() {
+		rset = ResourceSetWrapper.rset().register(versions[0]);
+		first.set(null);
+	}
+
+	@TearDown(Level.Iteration)
+	public void check() {
+		if (duplicates.get() > 0) {
+			throw new IllegalStateException(duplicates.get() + " duplicated EPackageWrapper handed out");
+		}
+	}
+
+	@Benchmark
+	@Group("registry")
+	@GroupThreads(7)
+	public EObjectWrapper<EObject> read() {
+		EPackageWrapper mm = rset.ePackage(Fixtures.SYNTHETIC);
+		if (!first.compareAndSet(null, mm) && first.get() != mm) {
+			duplicates.incrementAndGet();
+		}
+		return mm.create("Group").set("name", "group");
+	}
+
+	@Benchmark
+	@Group("registry")
+	@GroupThreads(1)
+	public ResourceSetWrapper write() {
+		version = 1 - version;
+		return rset.register(versions[version]);
+	}
+}
@@ -0,0 +1,183 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2016 Vincent Aranega
+ *
+ * See the file LICENSE for copying permission.
+ *******************************************************************************/
+package org.dynemf.benchmarks;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import org.dynemf.EObjectWrapper;
+import org.dynemf.EPackageWrapper;
+import org.dynemf.ResourceSetWrapper;
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EAttribute;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EClassifier;
+import org.eclipse.emf.ecore.EEnum;
+import org.eclipse.emf.ecore.EEnumLiteral;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EPackage;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.EcoreFactory;
+import org.eclipse.emf.ecore.EcorePackage;
+
+/**
+ * Metamodels and models shared by the benchmarks. Two metamodels are
+ * available: "simple" (the simple.ecore of the test resources) and
+ * "synthetic", a wider metamodel with several attribute types, inheritance
+ * and cross-references.
+ *
+ * @author Vincent Aranega
+ *
+ */
+final class Fixtures {
+	static final String SIMPLE = "http://DynEMF/simple/1.0";
+	static final String SYNTHETIC = "http://DynEMF/synthetic/1.0";
+
+	/**
+	 * Number of children created for each element of the generated trees.
+	 */
+	static final int FAN_OUT = 10;
+
+	private Fixtures() {
+	}
+
+	/**
+	 * Creates a {@link ResourceSetWrapper} with both metamodels registered.
+	 *
+	 * @return a new ResourceSetWrapper
+	 */
+	static ResourceSetWrapper resourceSet() {
+		return ResourceSetWrapper.rset().register(simpleURI()).register(synthetic());
+	}
+
+	/**
+	 * Gets the URI of the simple.ecore metamodel shipped with the benchmarks.
+	 *
+	 * @return the simple.ecore URI
+	 */
+	static URI simpleURI() {
+		return URI.createURI(Fixtures.class.getResource("/simple.ecore").toString());
+	}
+
+	/**
+	 * Gets the nsURI of a metamodel from its short name.
+	 *
+	 * @param metamodel "simple" or "synthetic"
+	 * @return the nsURI of the metamodel
+	 */
+	static String nsURI(String metamodel) {
+		return "simple".equals(metamodel) ? SIMPLE : SYNTHETIC;
+	}
+
+	/**
+	 * Builds the synthetic metamodel: an abstract Node (String, int, long,
+	 * double, boolean and enum attributes, a containment and two
+	 * cross-references) specialized by Group and Leaf.
+	 *
+	 * @return the synthetic metamodel root
+	 */
+	static EPackage synthetic() {
+		EcoreFactory f = EcoreFactory.eINSTANCE;
+		EcorePackage e = EcorePackage.eINSTANCE;
+		EPackage pack = f.createEPackage();
+		pack.setName("synthetic");
+		pack.setNsPrefix("synthetic");
+		pack.setNsURI(SYNTHETIC);
+
+		EEnum kind = f.createEEnum();
+		kind.setName("Kind");
+		String[] literals = { "ALPHA", "BETA", "GAMMA" };
+		for (int i = 0; i < literals.length; i++) {
+			EEnumLiteral literal = f.createEEnumLiteral();
+			literal.setName(literals[i]);
+			literal.setValue(i);
+			kind.getELiterals().add(literal);
+		}
+		pack.getEClassifiers().add(kind);
+
+		EClass node = f.createEClass();
+		node.setName("Node");
+		node.setAbstract(true);
+		node.getEStructuralFeatures().add(attribute("name", e.getEString(), 1));
+		node.getEStructuralFeatures().add(attribute("id", e.getEInt(), 1));
+		node.getEStructuralFeatures().add(attribute("stamp", e.getELong(), 1));
+		node.getEStructuralFeatures().add(attribute("weight", e.getEDouble(), 1));
+		node.getEStructuralFeatures().add(attribute("active", e.getEBoolean(), 1));
+		node.getEStructuralFeatures().add(attribute("kind", kind, 1));
+		node.getEStructuralFeatures().add(reference("children", node, -1, true));
+		node.getEStructuralFeatures().add(reference("next", node, 1, false));
+		node.getEStructuralFeatures().add(reference("links", node, -1, false));
+		pack.getEClassifiers().add(node);
+
+		EClass group = f.createEClass();
+		group.setName("Group");
+		group.getESuperTypes().add(node);
+		group.getEStructuralFeatures().add(attribute("label", e.getEString(), 1));
+		group.getEStructuralFeatures().add(attribute("tags", e.getEString(), -1));
+		pack.getEClassifiers().add(group);
+
+		EClass leaf = f.createEClass();
+		leaf.setName("Leaf");
+		leaf.getESuperTypes().add(node);
+		leaf.getEStructuralFeatures().add(attribute("value", e.getEDouble(), 1));
+		pack.getEClassifiers().add(leaf);
+		return pack;
+	}
+
+	private static EAttribute attribute(String name, EClassifier type, int upper) {
+		EAttribute attribute = EcoreFactory.eINSTANCE.createEAttribute();
+		attribute.setName(name);
+		attribute.setEType(type);
+		attribute.setUpperBound(upper);
+		return attribute;
+	}
+
+	private static EReference reference(String name, EClass type, int upper, boolean containment) {
+		EReference reference = EcoreFactory.eINSTANCE.createEReference();
+		reference.setName(name);
+		reference.setEType(type);
+		reference.setUpperBound(upper);
+		reference.setContainment(containment);
+		return reference;
+	}
+
+	/**
+	 * Builds a balanced containment tree of a given size, breadth first,
+	 * using {@link #FAN_OUT} children per element.
+	 *
+	 * @param rset a ResourceSetWrapper built by {@link #resourceSet()}
+	 * @param metamodel "simple" or "synthetic"
+	 * @param size the number of elements of the tree
+	 * @return the root of the tree
+	 */
+	static EObjectWrapper<EObject> tree(ResourceSetWrapper rset, String metamodel, int size) {
+		EPackageWrapper mm = rset.ePackage(nsURI(metamodel));
+		boolean simple = "simple".equals(metamodel);
+		String containment = simple ? "a" : "children";
+		EObjectWrapper<EObject> root = element(mm, simple, 0);
+		Deque<EObjectWrapper<EObject>> parents = new ArrayDeque<>();
+		parents.add(root);
+		int created = 1;
+		while (created < size) {
+			EObjectWrapper<EObject> parent = parents.poll();
+			for (int i = 0; i < FAN_OUT && created < size; i++) {
+				EObjectWrapper<EObject> child = element(mm, simple, created++);
+				parent.add(containment, child);
+				parents.add(child);
+			}
+		}
+		return root;
+	}
+
+	private static EObjectWrapper<EObject> element(EPackageWrapper mm, boolean simple, int i) {
+		if (simple) {
+			return mm.create("A").set("name", "a" + i);
+		}
+		EObjectWrapper<EObject> element = mm.create(i % 2 == 0 ? "Group" : "Leaf");
+		return element.set("name", "n" + i).set("id", i).set("stamp", (long) i * 31).set("weight", i / 3.0)
+				.set("active", i % 3 == 0);
+	}
+}
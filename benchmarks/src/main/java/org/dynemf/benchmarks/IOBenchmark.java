@@ -0,0 +1,107 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2016 Vincent Aranega
+ *
+ * See the file LICENSE for copying permission.
+ *******************************************************************************/
+package org.dynemf.benchmarks;
+
+import static org.dynemf.ResourceSetWrapper.rset;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.dynemf.IOProfile;
+import org.dynemf.MappedBinaryResourceImpl;
+import org.dynemf.ModelGenerator;
+import org.dynemf.ResourceSetWrapper;
+import org.dynemf.ResourceWrapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the save and load paths of {@link ResourceWrapper} and
+ * {@link ResourceSetWrapper#open(String)} for XMI and binary resources (read
+ * through a stream or memory mapped), compressed or not (the same model in
+ * ".xmi" and ".xmi.gz" gives the throughput lost or gained by compression),
+ * using models produced by the {@link ModelGenerator} and each
+ * {@link IOProfile}. The model size and the profiles can be changed from the
+ * command line, <i>e.g.</i>:
+ * <code>-p size=1000,100000,10000000 -p profile=BALANCED,FAST_LOAD</code>.
+ *
+ * @author Vincent Aranega
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx4g", "-Xss64m" })
+public class IOBenchmark {
+	@Param({ "1000", "100000" })
+	public int size;
+
+	@Param({ "simple", "synthetic" })
+	public String metamodel;
+
+	@Param({ "xmi", "bin", "xmi.gz", "bin.gz" })
+	public String format;
+
+	@Param({ "NONE", "BALANCED", "FAST_LOAD", "FAST_SAVE", "LOW_MEMORY" })
+	public IOProfile profile;
+
+	private static final Map<String, Object> MAPPED = Collections.<String, Object> singletonMap(
+			MappedBinaryResourceImpl.OPTION_MEMORY_MAPPED, Boolean.TRUE);
+
+	private ResourceSetWrapper rset;
+	private ResourceWrapper resource;
+	private File file;
+
+	@Setup
+	public void setup() throws IOException {
+		rset = Fixtures.resourceSet().profile(profile);
+		file = File.createTempFile("dynemf-bench", "." + format);
+		resource = rset.ePackage(Fixtures.nsURI(metamodel)).generator().seed(42).size(size).references(0.1)
+				.generate(rset.create(file.getAbsolutePath())).save();
+	}
+
+	@TearDown
+	public void tearDown() {
+		file.delete();
+	}
+
+	@Benchmark
+	public ResourceWrapper save() throws IOException {
+		return resource.save();
+	}
+
+	@Benchmark
+	public ResourceWrapper open() {
+		return rset().profile(profile).copyPackageRegistry(rset.result()).open(file.getAbsolutePath());
+	}
+
+	@Benchmark
+	public ResourceWrapper load() throws IOException {
+		return rset().profile(profile).copyPackageRegistry(rset.result()).create(file.getAbsolutePath())
+				.load(file.getAbsolutePath());
+	}
+
+	@Benchmark
+	public ResourceWrapper loadMapped() throws IOException {
+		return rset().profile(profile).copyPackageRegistry(rset.result()).create(file.getAbsolutePath())
+				.load(file.getAbsolutePath(), MAPPED);
+	}
+}
@@ -0,0 +1,63 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2016 Vincent Aranega
+ *
+ * See the file LICENSE for copying permission.
+ *******************************************************************************/
+package org.dynemf.benchmarks;
+
+import static org.dynemf.ResourceSetWrapper.rset;
+
+import java.util.concurrent.TimeUnit;
+
+import org.dynemf.EPackageWrapper;
+import org.dynemf.ResourceSetWrapper;
+import org.eclipse.emf.common.util.URI;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures metamodel registration and {@link EPackageWrapper} lookup on a
+ * {@link ResourceSetWrapper}.
+ *
+ * @author Vincent Aranega
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RegistryBenchmark {
+	private URI simple;
+	private ResourceSetWrapper rset;
+
+	@Setup
+	public void setup() {
+		simple = Fixtures.simpleURI();
+		rset = Fixtures.resourceSet();
+	}
+
+	@Benchmark
+	public ResourceSetWrapper register() {
+		return rset().register(simple);
+	}
+
+	@Benchmark
+	public ResourceSetWrapper registerEPackage() {
+		return rset().register(Fixtures.synthetic());
+	}
+
+	@Benchmark
+	public EPackageWrapper ePackage() {
+		return rset.ePackage(Fixtures.SIMPLE);
+	}
+}
@@ -0,0 +1,80 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2016 Vincent Aranega
+ *
+ * See the file LICENSE for copying permission.
+ *******************************************************************************/
+package org.dynemf.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.dynemf.EObjectWrapper;
+import org.dynemf.ListWrapper;
+import org.eclipse.emf.ecore.EObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures a full containment traversal through {@link ListWrapper}. The
+ * model size can be changed from the command line, <i>e.g.</i>:
+ * <code>-p size=1000,100000,10000000</code>.
+ *
+ * @author Vincent Aranega
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class TraversalBenchmark {
+	@Param({ "1000", "100000" })
+	public int size;
+
+	@Param({ "simple", "synthetic" })
+	public String metamodel;
+
+	private EObjectWrapper<EObject> root;
+	private String containment;
+
+	@Setup
+	public void setup() {
+		root = Fixtures.tree(Fixtures.resourceSet(), metamodel, size);
+		containment = "simple".equals(metamodel) ? "a" : "children";
+	}
+
+	@Benchmark
+	public void iterate(Blackhole bh) {
+		iterate(root, bh);
+	}
+
+	private void iterate(EObjectWrapper<?> e, Blackhole bh) {
+		bh.consume(e);
+		for (EObjectWrapper<?> child : e.property(containment).asList()) {
+			iterate(child, bh);
+		}
+	}
+
+	@Benchmark
+	public void indexed(Blackhole bh) {
+		indexed(root, bh);
+	}
+
+	private void indexed(EObjectWrapper<?> e, Blackhole bh) {
+		bh.consume(e);
+		ListWrapper children = e.property(containment).asList();
+		for (int i = 0; i < children.size(); i++) {
+			indexed(children.at(i), bh);
+		}
+	}
+}
@@ -0,0 +1,104 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2016 Vincent Aranega
+ *
+ * See the file LICENSE for copying permission.
+ *******************************************************************************/
+package org.dynemf.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.dynemf.EObjectCreator;
+import org.dynemf.EObjectWrapper;
+import org.dynemf.EPackageWrapper;
+import org.dynemf.ResourceSetWrapper;
+import org.dynemf.ValueWrapper;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the {@link EPackageWrapper} and {@link EObjectWrapper} API on
+ * single elements.
+ *
+ * @author Vincent Aranega
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WrapperBenchmark {
+	private EPackageWrapper mm;
+	private EObjectWrapper<EObject> element;
+	private EObjectWrapper<EObject> parent;
+	private EObjectWrapper<EObject> container;
+	private EStructuralFeature name;
+	private EObjectCreator<EObject> creator;
+
+	@Setup
+	public void setup() {
+		ResourceSetWrapper rset = Fixtures.resourceSet();
+		mm = rset.ePackage(Fixtures.SIMPLE);
+		element = mm.create("A").set("name", "element");
+		container = Fixtures.tree(rset, "simple", 1 + Fixtures.FAN_OUT);
+		name = element.feature("name");
+		creator = mm.creator("A");
+	}
+
+	@Setup(Level.Iteration)
+	public void resetParent() {
+		parent = mm.create("A");
+	}
+
+	@Benchmark
+	public EObjectWrapper<EObject> create() {
+		return mm.create("A");
+	}
+
+	@Benchmark
+	public EObjectWrapper<EObject> createWithCreator() {
+		return creator.create();
+	}
+
+	@Benchmark
+	public EObjectWrapper<EObject> set() {
+		return element.set("name", "value");
+	}
+
+	@Benchmark
+	public EObjectWrapper<EObject> setResolved() {
+		return element.set(name, "value");
+	}
+
+	@Benchmark
+	public EObjectWrapper<EObject> add() {
+		return parent.add("a", mm.create("A"));
+	}
+
+	@Benchmark
+	public ValueWrapper<?> property() {
+		return element.property("name");
+	}
+
+	@Benchmark
+	public ValueWrapper<?> propertyResolved() {
+		return element.property(name);
+	}
+
+	@Benchmark
+	public ValueWrapper<?> propertyMany() {
+		return container.property("a").asList().at(0);
+	}
+}
@@ -0,0 +1,174 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2016 Vincent Aranega
+ *
+ * See the file LICENSE for copying permission.
+ *******************************************************************************/
+package org.dynemf;
+
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.URIConverter;
+
+/**
+ * Queues the asynchronous saves of resource snapshots. The saves towards the
+ * same URI are executed one after the other and coalesced: while a save is
+ * running, the following requests replace the snapshot of a single pending
+ * save, so only the most recent state is written once the running save ends.
+ *
+ * @author Vincent Aranega
+ *
+ */
+final class AsyncSaves {
+	private static final Map<URI, Slot> slots = new HashMap<>();
+
+	private AsyncSaves() {
+	}
+
+	/**
+	 * Gets the executor used by default to write the snapshots: a pool of
+	 * daemon threads dedicated to I/O.
+	 */
+	static Executor defaultExecutor() {
+		return IOExecutor.INSTANCE;
+	}
+
+	/**
+	 * Submits the save of a snapshot at its URI.
+	 *
+	 * @param snapshot the resource to save, owned by the save from now on
+	 * @param options the save options
+	 * @param converter the converter creating the output stream
+	 * @param executor the executor writing the snapshot
+	 * @return a future completed once a snapshot at least as recent as this
+	 *         one is written
+	 */
+	static CompletableFuture<Void> submit(Resource snapshot, Map<?, ?> options, URIConverter converter,
+			Executor executor) {
+		URI uri = snapshot.getURI();
+		Save save;
+		synchronized (slots) {
+			Slot slot = slots.get(uri);
+			if (slot == null) {
+				slot = new Slot(uri);
+				slots.put(uri, slot);
+			}
+			if (slot.pending != null) {
+				slot.pending.replace(snapshot, options, converter, executor);
+				return slot.pending.future;
+			}
+			save = new Save(slot, snapshot, options, converter, executor);
+			if (slot.running != null) {
+				slot.pending = save;
+				return save.future;
+			}
+			slot.running = save;
+		}
+		start(save);
+		return save.future;
+	}
+
+	private static void start(Save save) {
+		try {
+			save.executor.execute(save);
+		} catch (RuntimeException e) {
+			save.future.completeExceptionally(e);
+			next(save.slot);
+		}
+	}
+
+	private static void next(Slot slot) {
+		Save next;
+		synchronized (slots) {
+			next = slot.pending;
+			slot.pending = null;
+			slot.running = next;
+			if (next == null) {
+				slots.remove(slot.uri);
+			}
+		}
+		if (next != null) {
+			start(next);
+		}
+	}
+
+	private static final class Slot {
+		final URI uri;
+		Save running;
+		Save pending;
+
+		Slot(URI uri) {
+			this.uri = uri;
+		}
+	}
+
+	private static final class Save implements Runnable {
+		final Slot slot;
+		final CompletableFuture<Void> future = new CompletableFuture<>();
+		// Guarded by the slots lock until the save starts
+		Resource snapshot;
+		Map<?, ?> options;
+		URIConverter converter;
+		Executor executor;
+
+		Save(Slot slot, Resource snapshot, Map<?, ?> options, URIConverter converter, Executor executor) {
+			this.slot = slot;
+			replace(snapshot, options, converter, executor);
+		}
+
+		void replace(Resource snapshot, Map<?, ?> options, URIConverter converter, Executor executor) {
+			this.snapshot = snapshot;
+			this.options = options;
+			this.converter = converter;
+			this.executor = executor;
+		}
+
+		@Override
+		public void run() {
+			Resource resource;
+			Map<?, ?> opts;
+			URIConverter conv;
+			synchronized (slots) {
+				resource = snapshot;
+				opts = options;
+				conv = converter;
+			}
+			try {
+				OutputStream stream = conv.createOutputStream(resource.getURI(), opts);
+				try {
+					resource.save(stream, opts);
+				} finally {
+					stream.close();
+				}
+				future.complete(null);
+			} catch (Throwable e) {
+				future.completeExceptionally(e);
+			} finally {
+				next(slot);
+			}
+		}
+	}
+
+	private static final class IOExecutor {
+		static final ExecutorService INSTANCE = Executors.newFixedThreadPool(
+				Math.max(2, Runtime.getRuntime().availableProcessors() / 2), new ThreadFactory() {
+					private final AtomicInteger count = new AtomicInteger();
+
+					@Override
+					public Thread newThread(Runnable r) {
+						Thread thread = new Thread(r, "dynemf-io-" + count.incrementAndGet());
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+	}
+}
@@ -0,0 +1,358 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2016 Vincent Aranega
+ *
+ * See the file LICENSE for copying permission.
+ *******************************************************************************/
+package org.dynemf;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.eclipse.emf.common.notify.Adapter;
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.common.notify.Notifier;
+import org.eclipse.emf.ecore.EAttribute;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EClassifier;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EPackage;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.emf.ecore.util.EContentAdapter;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+
+/**
+ * Indexes the instances of a meta-class held by a resource set or a resource
+ * by the values of one of their attributes (see
+ * {@link ResourceSetWrapper#index(String, String, String)}). The index is
+ * maintained as the attribute is modified and as the elements are added or
+ * removed: a lookup by value is answered by a hash lookup, and a lookup by
+ * range of values by a sorted map if the attribute values are
+ * {@link Comparable}.
+ *
+ * A String key is converted to the attribute type if needed, so business keys
+ * can be looked up whatever their type.
+ *
+ * The hash and sorted maps of the index are updated by the notifications of
+ * the indexed elements and are not synchronized: the index and the elements
+ * it covers must be confined to a single thread at a time.
+ *
+ * @author Vincent Aranega
+ *
+ */
+public final class AttributeIndex {
+	private final EClass eClass;
+	private final EAttribute attribute;
+	private final Map<Object, Set<EObject>> values = new HashMap<>();
+	private final NavigableMap<Object, Set<EObject>> sorted;
+	private final Maintainer maintainer = new Maintainer();
+	private final Notifier notifier;
+
+	private AttributeIndex(Notifier notifier, EClass eClass, EAttribute attribute) {
+		this.notifier = notifier;
+		this.eClass = eClass;
+		this.attribute = attribute;
+		Class<?> type = attribute.getEAttributeType().getInstanceClass();
+		if (type != null && Comparable.class.isAssignableFrom(EcoreUtil.wrapperClassFor(type))) {
+			sorted = new TreeMap<>();
+		} else {
+			sorted = null;
+		}
+	}
+
+	/**
+	 * Starts indexing the instances of a meta-class by an attribute (if it is
+	 * not already the case).
+	 *
+	 * @param notifier the resource set or the resource to index
+	 * @param eClass the meta-class
+	 * @param attribute the attribute
+	 * @return the index
+	 */
+	static AttributeIndex attach(Notifier notifier, EClass eClass, EAttribute attribute) {
+		for (Adapter adapter : notifier.eAdapters()) {
+			if (adapter instanceof Maintainer) {
+				AttributeIndex index = ((Maintainer) adapter).index();
+				if (index.eClass == eClass && index.attribute == attribute) {
+					return index;
+				}
+			}
+		}
+		AttributeIndex index = new AttributeIndex(notifier, eClass, attribute);
+		notifier.eAdapters().add(index.maintainer);
+		return index;
+	}
+
+	/**
+	 * Finds an existing index answering the lookups on the instances of a
+	 * meta-class by a feature.
+	 *
+	 * @param notifier the indexed resource set or resource
+	 * @param eClass the meta-class of the looked up instances
+	 * @param feature the feature of the lookups
+	 * @return the index or null if there is none
+	 */
+	static AttributeIndex find(Notifier notifier, EClass eClass, EStructuralFeature feature) {
+		for (Adapter adapter : notifier.eAdapters()) {
+			if (adapter instanceof Maintainer) {
+				AttributeIndex index = ((Maintainer) adapter).index();
+				if (index.attribute == feature && index.eClass.isSuperTypeOf(eClass)) {
+					return index;
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Resolves the meta-class and the attribute to index.
+	 *
+	 * @param notifier the resource set or the resource to index
+	 * @param registry the registry holding the metamodel
+	 * @param nsUri the nsURI of the metamodel
+	 * @param className the meta-class name
+	 * @param attributeName the attribute name
+	 * @return the index, once attached to the notifier
+	 */
+	static AttributeIndex attach(Notifier notifier, EPackage.Registry registry, String nsUri, String className,
+			String attributeName) {
+		EPackage pack = registry.getEPackage(nsUri);
+		EClassifier eClass = pack == null ? null : pack.getEClassifier(className);
+		if (!(eClass instanceof EClass)) {
+			throw new RuntimeException("Meta-class '" + className + "' does not exist");
+		}
+		EStructuralFeature feature = ((EClass) eClass).getEStructuralFeature(attributeName);
+		if (!(feature instanceof EAttribute)) {
+			throw new RuntimeException("Attribute '" + attributeName + "' does not exist");
+		}
+		return attach(notifier, (EClass) eClass, (EAttribute) feature);
+	}
+
+	/**
+	 * Gets the indexed meta-class.
+	 *
+	 * @return the meta-class
+	 */
+	public EClass eClass() {
+		return eClass;
+	}
+
+	/**
+	 * Gets the indexed attribute.
+	 *
+	 * @return the attribute
+	 */
+	public EAttribute attribute() {
+		return attribute;
+	}
+
+	/**
+	 * Gets the elements having a value.
+	 *
+	 * @param key the value to look for
+	 * @return the elements currently having this value (a copy)
+	 */
+	public InstanceSet get(Object key) {
+		Set<EObject> result = values.get(key(key));
+		return new InstanceSet(result == null ? Collections.<EObject> emptySet() : new LinkedHashSet<>(result));
+	}
+
+	/**
+	 * Gets the first element having a value, typically to resolve an element
+	 * by a unique key.
+	 *
+	 * @param key the value to look for
+	 * @return the first element having this value or null if there is none
+	 */
+	public EObjectWrapper<?> first(Object key) {
+		Set<EObject> result = values.get(key(key));
+		return result == null ? null : EObjectWrapper.obj(result.iterator().next());
+	}
+
+	/**
+	 * Gets the elements having a value in a range, ordered by value.
+	 *
+	 * @param from the lowest value (inclusive), or null for no lower bound
+	 * @param to the highest value (exclusive), or null for no upper bound
+	 * @return the elements currently having a value in the range (a copy)
+	 * @throws UnsupportedOperationException if the attribute values are not
+	 *             comparable
+	 */
+	public InstanceSet range(Object from, Object to) {
+		if (sorted == null) {
+			throw new UnsupportedOperationException("Values of '" + attribute.getName() + "' are not comparable");
+		}
+		NavigableMap<Object, Set<EObject>> range = sorted;
+		if (from != null) {
+			range = range.tailMap(key(from), true);
+		}
+		if (to != null) {
+			range = range.headMap(key(to), false);
+		}
+		Set<EObject> result = new LinkedHashSet<>();
+		for (Set<EObject> objs : range.values()) {
+			result.addAll(objs);
+		}
+		return new InstanceSet(result);
+	}
+
+	/**
+	 * Checks if the index answers the range lookups.
+	 */
+	boolean isSorted() {
+		return sorted != null;
+	}
+
+	/**
+	 * Gets the number of distinct indexed values.
+	 *
+	 * @return the number of values
+	 */
+	public int size() {
+		return values.size();
+	}
+
+	/**
+	 * Stops maintaining this index.
+	 */
+	public void remove() {
+		notifier.eAdapters().remove(maintainer);
+	}
+
+	private Object key(Object key) {
+		if (key instanceof String && attribute.getEAttributeType().getInstanceClass() != String.class) {
+			return EcoreUtil.createFromString(attribute.getEAttributeType(), (String) key);
+		}
+		return key;
+	}
+
+	private void add(EObject obj, Object value) {
+		if (value == null) {
+			return;
+		}
+		Set<EObject> objs = values.get(value);
+		if (objs == null) {
+			objs = new LinkedHashSet<>();
+			values.put(value, objs);
+			if (sorted != null) {
+				sorted.put(value, objs);
+			}
+		}
+		objs.add(obj);
+	}
+
+	private void remove(EObject obj, Object value) {
+		if (value == null) {
+			return;
+		}
+		// Another occurrence of the value may remain in a non unique list
+		if (attribute.isMany() && ((Collection<?>) obj.eGet(attribute)).contains(value)) {
+			return;
+		}
+		discard(obj, value);
+	}
+
+	private void discard(EObject obj, Object value) {
+		Set<EObject> objs = values.get(value);
+		if (objs != null && objs.remove(obj) && objs.isEmpty()) {
+			values.remove(value);
+			if (sorted != null) {
+				sorted.remove(value);
+			}
+		}
+	}
+
+	private void addAll(EObject obj, Object values) {
+		for (Object value : (Collection<?>) values) {
+			add(obj, value);
+		}
+	}
+
+	private void removeAll(EObject obj, Object values) {
+		for (Object value : (Collection<?>) values) {
+			remove(obj, value);
+		}
+	}
+
+	/*
+	 * Maintains the index as the elements are added, removed and modified.
+	 */
+	private final class Maintainer extends EContentAdapter {
+		AttributeIndex index() {
+			return AttributeIndex.this;
+		}
+
+		@Override
+		protected boolean resolve() {
+			return false;
+		}
+
+		@Override
+		protected void setTarget(EObject target) {
+			super.setTarget(target);
+			if (eClass.isSuperTypeOf(target.eClass())) {
+				if (attribute.isMany()) {
+					addAll(target, target.eGet(attribute));
+				} else {
+					add(target, target.eGet(attribute));
+				}
+			}
+		}
+
+		@Override
+		protected void unsetTarget(EObject target) {
+			super.unsetTarget(target);
+			if (eClass.isSuperTypeOf(target.eClass())) {
+				Object value = target.eGet(attribute);
+				if (attribute.isMany()) {
+					for (Object each : (Collection<?>) value) {
+						if (each != null) {
+							discard(target, each);
+						}
+					}
+				} else {
+					remove(target, value);
+				}
+			}
+		}
+
+		@Override
+		public void notifyChanged(Notification notification) {
+			super.notifyChanged(notification);
+			if (notification.getFeature() != attribute || notification.isTouch()) {
+				return;
+			}
+			EObject obj = (EObject) notification.getNotifier();
+			// An inherited attribute is also set on the instances of sibling classes
+			if (!eClass.isSuperTypeOf(obj.eClass())) {
+				return;
+			}
+			switch (notification.getEventType()) {
+			case Notification.SET:
+			case Notification.UNSET:
+				remove(obj, notification.getOldValue());
+				add(obj, notification.getNewValue());
+				break;
+			case Notification.ADD:
+				add(obj, notification.getNewValue());
+				break;
+			case Notification.ADD_MANY:
+				addAll(obj, notification.getNewValue());
+				break;
+			case Notification.REMOVE:
+				remove(obj, notification.getOldValue());
+				break;
+			case Notification.REMOVE_MANY:
+				removeAll(obj, notification.getOldValue());
+				break;
+			default:
+				break;
+			}
+		}
+	}
+}
@@ -0,0 +1,150 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2016 Vincent Aranega
+ *
+ * See the file LICENSE for copying permission.
+ *******************************************************************************/
+package org.dynemf;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.InternalEObject;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.impl.BinaryResourceImpl;
+import org.eclipse.emf.ecore.util.InternalEList;
+
+/**
+ * Writes a {@link BinaryResourceImpl} document root by root. The binary
+ * format gives the size of each containment list before its elements, so the
+ * children streamed inside a root are attached to their parent and the root
+ * is encoded when it is closed: memory is bounded by the largest root, which
+ * is the whole model when it has a single root. The roots are spooled in a
+ * temporary file until the writer is closed as their count comes first in
+ * the document.
+ *
+ * @author Vincent Aranega
+ *
+ */
+final class BinaryStreamWriter extends ResourceWriter {
+
+	/**
+	 * The EMF encoder, writing in a redirectable stream and only remembering
+	 * the identifiers of the elements still reachable
+	 */
+	private static final class Encoder extends BinaryResourceImpl.EObjectOutputStream {
+		Encoder(OutputStream stream, Map<?, ?> options, Resource resource) throws IOException {
+			super(stream, options);
+			this.resource = resource;
+			URI uri = resource.getURI();
+			if (uri != null && uri.isHierarchical() && !uri.isRelative()) {
+				this.baseURI = uri;
+			}
+			this.eObjectIDMap = new Identifiers();
+		}
+
+		void redirect(OutputStream stream) throws IOException {
+			flush();
+			outputStream = stream;
+		}
+	}
+
+	/**
+	 * Weak identifier map whose size keeps counting the collected entries (the
+	 * encoder uses it to allocate the next identifier)
+	 */
+	private static final class Identifiers extends WeakHashMap<EObject, Integer> {
+		private int count = 0;
+
+		@Override
+		public Integer put(EObject key, Integer value) {
+			Integer previous = super.put(key, value);
+			if (previous == null) {
+				count++;
+			}
+			return previous;
+		}
+
+		@Override
+		public int size() {
+			return count;
+		}
+	}
+
+	private final OutputStream out;
+	private final ByteArrayOutputStream header = new ByteArrayOutputStream();
+	private final File spool;
+	private final OutputStream body;
+	private final Encoder encoder;
+	private int roots = 0;
+
+	BinaryStreamWriter(Resource resource, OutputStream stream, Map<?, ?> options) throws IOException {
+		this.out = stream;
+		this.encoder = new Encoder(header, options, resource);
+		this.spool = File.createTempFile("dynemf", ".bin");
+		this.body = new BufferedOutputStream(new FileOutputStream(spool));
+		encoder.redirect(body);
+	}
+
+	@Override
+	void startRoot(EObject root) throws IOException {
+		roots++;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	void startChild(EObject parent, EReference feature, EObject child) throws IOException {
+		if (feature.isMany()) {
+			((InternalEList<EObject>) parent.eGet(feature)).addUnique(child);
+		} else if (parent.eIsSet(feature)) {
+			throw new RuntimeException("Feature '" + feature.getName() + "' already holds an element");
+		} else {
+			parent.eSet(feature, child);
+		}
+	}
+
+	@Override
+	void endElement(EObject obj) throws IOException {
+		if (depth() == 0) {
+			encoder.saveEObject((InternalEObject) obj, BinaryResourceImpl.EObjectOutputStream.Check.CONTAINER);
+		}
+	}
+
+	@Override
+	void finish() throws IOException {
+		ByteArrayOutputStream count = new ByteArrayOutputStream();
+		encoder.redirect(count);
+		encoder.writeCompressedInt(roots);
+		encoder.flush();
+		body.close();
+		header.writeTo(out);
+		count.writeTo(out);
+		try (InputStream in = new FileInputStream(spool)) {
+			byte[] buffer = new byte[8192];
+			for (int n; (n = in.read(buffer)) > 0;) {
+				out.write(buffer, 0, n);
+			}
+		}
+		out.flush();
+	}
+
+	@Override
+	void release() throws IOException {
+		try {
+			body.close();
+			out.close();
+		} finally {
+			spool.delete();
+		}
+	}
+}
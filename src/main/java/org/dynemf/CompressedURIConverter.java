@@ -0,0 +1,125 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2016 Vincent Aranega
+ *
+ * See the file LICENSE for copying permission.
+ *******************************************************************************/
+package org.dynemf;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.impl.ExtensibleURIConverterImpl;
+import org.eclipse.emf.ecore.resource.impl.ResourceFactoryImpl;
+
+/**
+ * URIConverter compressing the URIs ending with ".gz" on the fly: streams are
+ * (de)compressed with gzip as they are read or written, files are never
+ * buffered as a whole. The format of a compressed URI is given by the
+ * extension preceding ".gz" (<i>e.g.</i>: "model.bin.gz" is a gzipped binary
+ * resource).
+ *
+ * @author Vincent Aranega
+ *
+ */
+public class CompressedURIConverter extends ExtensibleURIConverterImpl {
+	/**
+	 * The extension of compressed URIs
+	 */
+	public static final String EXTENSION = "gz";
+
+	static final CompressedURIConverter DEFAULT = new CompressedURIConverter();
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	@Override
+	public InputStream createInputStream(URI uri, Map<?, ?> options) throws IOException {
+		InputStream stream = super.createInputStream(uri, options);
+		if (!isCompressed(uri)) {
+			return stream;
+		}
+		try {
+			return new GZIPInputStream(stream, BUFFER_SIZE);
+		} catch (IOException e) {
+			stream.close();
+			throw e;
+		}
+	}
+
+	@Override
+	public OutputStream createOutputStream(URI uri, Map<?, ?> options) throws IOException {
+		OutputStream stream = super.createOutputStream(uri, options);
+		if (!isCompressed(uri)) {
+			return stream;
+		}
+		return new GZIPOutputStream(stream, BUFFER_SIZE);
+	}
+
+	/**
+	 * Checks if an URI denotes a compressed resource.
+	 *
+	 * @param uri the URI to check (can be null)
+	 * @return true if the URI ends with ".gz"
+	 */
+	public static boolean isCompressed(URI uri) {
+		return uri != null && EXTENSION.equalsIgnoreCase(uri.fileExtension());
+	}
+
+	/**
+	 * Gets the extension giving the format of an URI, ignoring the
+	 * compression extension (<i>e.g.</i>: "bin" for "model.bin.gz").
+	 *
+	 * @param uri the URI (can be null)
+	 * @return the format extension or null if there is none
+	 */
+	public static String formatExtension(URI uri) {
+		while (isCompressed(uri)) {
+			uri = uri.trimFileExtension();
+		}
+		return uri == null ? null : uri.fileExtension();
+	}
+
+	/**
+	 * Checks if an URI denotes a binary resource, compressed or not.
+	 *
+	 * @param uri the URI (can be null)
+	 * @return true if the format extension is "bin"
+	 */
+	static boolean isBinary(URI uri) {
+		return "bin".equalsIgnoreCase(formatExtension(uri));
+	}
+
+	/**
+	 * Creates a factory delegating the creation of compressed resources to the
+	 * factory registered for their format extension.
+	 *
+	 * @param registry the registry holding the format factories
+	 * @return a factory to bind to the {@link #EXTENSION} extension
+	 */
+	static Resource.Factory factory(Resource.Factory.Registry registry) {
+		return new DelegatingFactory(registry);
+	}
+
+	/**
+	 * Creates the compressed resources with the factory registered for their
+	 * format extension
+	 */
+	static final class DelegatingFactory extends ResourceFactoryImpl {
+		private final Resource.Factory.Registry registry;
+
+		DelegatingFactory(Resource.Factory.Registry registry) {
+			this.registry = registry;
+		}
+
+		@Override
+		public Resource createResource(URI uri) {
+			Resource.Factory factory = registry.getFactory(uri.trimFileExtension());
+			return factory == null ? null : factory.createResource(uri);
+		}
+	}
+}
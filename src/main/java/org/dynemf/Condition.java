@@ -0,0 +1,269 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2016 Vincent Aranega
+ *
+ * See the file LICENSE for copying permission.
+ *******************************************************************************/
+package org.dynemf;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import org.eclipse.emf.ecore.EAttribute;
+import org.eclipse.emf.ecore.EDataType;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+
+/**
+ * Represents a condition on the value of a feature used by
+ * {@link Query#where(String, Condition)}. Conditions are built by the static
+ * methods of this class (<i>e.g.</i>: {@code where("name", startsWith("x"))}).
+ * The equality and range conditions are answered by an {@link AttributeIndex}
+ * when one is available.
+ *
+ * As for the attribute indexes, a String operand is converted to the type of
+ * an attribute whose values are not Strings.
+ *
+ * @author Vincent Aranega
+ *
+ */
+public final class Condition implements Predicate<Object> {
+	enum Kind {
+		EQ, NE, IN, LT, LE, GT, GE, BETWEEN, STARTS_WITH, CONTAINS, NULL
+	}
+
+	final Kind kind;
+	final Object low;
+	final Object high;
+
+	private Condition(Kind kind, Object low, Object high) {
+		this.kind = kind;
+		this.low = low;
+		this.high = high;
+	}
+
+	/**
+	 * Checks if a value satisfies this condition (without operand
+	 * conversion).
+	 *
+	 * @param value the value to check
+	 * @return true if the value satisfies the condition
+	 */
+	@Override
+	public boolean test(Object value) {
+		return matches(value, low, high);
+	}
+
+	/**
+	 * Gets the operands converted to the type of a feature.
+	 *
+	 * @param feature the feature whose values are checked
+	 * @return the low and high operands
+	 */
+	Object[] operands(EStructuralFeature feature) {
+		if (!(feature instanceof EAttribute) || kind == Kind.STARTS_WITH || kind == Kind.CONTAINS) {
+			return new Object[] { low, high };
+		}
+		EDataType type = ((EAttribute) feature).getEAttributeType();
+		return new Object[] { convert(type, low), convert(type, high) };
+	}
+
+	private static Object convert(EDataType type, Object operand) {
+		if (!(operand instanceof String) || type.getInstanceClass() == String.class) {
+			return operand;
+		}
+		return EcoreUtil.createFromString(type, (String) operand);
+	}
+
+	/**
+	 * Checks if a value satisfies this condition with converted operands.
+	 *
+	 * @param value the value to check
+	 * @param operands the operands given by {@link #operands(EStructuralFeature)}
+	 * @return true if the value satisfies the condition
+	 */
+	boolean test(Object value, Object[] operands) {
+		return matches(value, operands[0], operands[1]);
+	}
+
+	/**
+	 * Looks up the elements satisfying this condition in an index.
+	 *
+	 * @param index the index of the checked attribute
+	 * @return the elements or null if the index cannot answer this condition
+	 */
+	Set<EObject> lookup(AttributeIndex index) {
+		if (low == null) {
+			return null;
+		}
+		switch (kind) {
+		case EQ:
+			return index.get(low).result();
+		case GE:
+			return index.isSorted() ? index.range(low, null).result() : null;
+		case LT:
+			return index.isSorted() ? index.range(null, low).result() : null;
+		case BETWEEN:
+			return index.isSorted() && high != null ? index.range(low, high).result() : null;
+		default:
+			return null;
+		}
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private boolean matches(Object value, Object low, Object high) {
+		switch (kind) {
+		case NULL:
+			return value == null;
+		case EQ:
+			return low == null ? value == null : low.equals(value);
+		case NE:
+			return low == null ? value != null : !low.equals(value);
+		case IN:
+			return ((Set<?>) low).contains(value);
+		case STARTS_WITH:
+			return value != null && value.toString().startsWith((String) low);
+		case CONTAINS:
+			return value != null && value.toString().contains((String) low);
+		default:
+			break;
+		}
+		if (value == null) {
+			return false;
+		}
+		Comparable c = (Comparable) value;
+		switch (kind) {
+		case LT:
+			return c.compareTo(low) < 0;
+		case LE:
+			return c.compareTo(low) <= 0;
+		case GT:
+			return c.compareTo(low) > 0;
+		case GE:
+			return c.compareTo(low) >= 0;
+		default:
+			return c.compareTo(low) >= 0 && c.compareTo(high) < 0;
+		}
+	}
+
+	/*
+	 * Static constructors
+	 */
+
+	/**
+	 * Builds a condition satisfied by the values equal to an operand.
+	 *
+	 * @param value the operand
+	 * @return a new condition
+	 */
+	public static Condition eq(Object value) {
+		return new Condition(Kind.EQ, value, null);
+	}
+
+	/**
+	 * Builds a condition satisfied by the values different from an operand.
+	 *
+	 * @param value the operand
+	 * @return a new condition
+	 */
+	public static Condition ne(Object value) {
+		return new Condition(Kind.NE, value, null);
+	}
+
+	/**
+	 * Builds a condition satisfied by the values equal to one of the
+	 * operands (they are not converted).
+	 *
+	 * @param values the operands
+	 * @return a new condition
+	 */
+	public static Condition in(Object... values) {
+		return new Condition(Kind.IN, new HashSet<>(Arrays.asList(values)), null);
+	}
+
+	/**
+	 * Builds a condition satisfied by the values lower than an operand.
+	 *
+	 * @param value the operand
+	 * @return a new condition
+	 */
+	public static Condition lt(Object value) {
+		return new Condition(Kind.LT, value, null);
+	}
+
+	/**
+	 * Builds a condition satisfied by the values lower than or equal to an
+	 * operand.
+	 *
+	 * @param value the operand
+	 * @return a new condition
+	 */
+	public static Condition le(Object value) {
+		return new Condition(Kind.LE, value, null);
+	}
+
+	/**
+	 * Builds a condition satisfied by the values greater than an operand.
+	 *
+	 * @param value the operand
+	 * @return a new condition
+	 */
+	public static Condition gt(Object value) {
+		return new Condition(Kind.GT, value, null);
+	}
+
+	/**
+	 * Builds a condition satisfied by the values greater than or equal to an
+	 * operand.
+	 *
+	 * @param value the operand
+	 * @return a new condition
+	 */
+	public static Condition ge(Object value) {
+		return new Condition(Kind.GE, value, null);
+	}
+
+	/**
+	 * Builds a condition satisfied by the values of a range.
+	 *
+	 * @param from the lowest value (inclusive)
+	 * @param to the highest value (exclusive)
+	 * @return a new condition
+	 */
+	public static Condition between(Object from, Object to) {
+		return new Condition(Kind.BETWEEN, from, to);
+	}
+
+	/**
+	 * Builds a condition satisfied by the values whose String representation
+	 * starts with a prefix.
+	 *
+	 * @param prefix the prefix
+	 * @return a new condition
+	 */
+	public static Condition startsWith(String prefix) {
+		return new Condition(Kind.STARTS_WITH, prefix, null);
+	}
+
+	/**
+	 * Builds a condition satisfied by the values whose String representation
+	 * contains a String.
+	 *
+	 * @param part the String to look for
+	 * @return a new condition
+	 */
+	public static Condition contains(String part) {
+		return new Condition(Kind.CONTAINS, part, null);
+	}
+
+	/**
+	 * Builds a condition satisfied by the null values.
+	 *
+	 * @return a new condition
+	 */
+	public static Condition isNull() {
+		return new Condition(Kind.NULL, null, null);
+	}
+}
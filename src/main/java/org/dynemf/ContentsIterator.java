@@ -0,0 +1,153 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2016 Vincent Aranega
+ *
+ * See the file LICENSE for copying permission.
+ *******************************************************************************/
+package org.dynemf;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.eclipse.emf.common.util.EList;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.util.InternalEList;
+
+/**
+ * Iterates over a list of elements and all their contents in depth-first
+ * order. The containment features are walked directly with a stack of
+ * positions, whereas EObject.eAllContents() creates a list and an iterator
+ * for the contents of each element.
+ *
+ * @author Vincent Aranega
+ *
+ */
+final class ContentsIterator implements Iterator<EObject> {
+	private final List<? extends EObject> roots;
+	private final boolean resolve;
+	private int root = 0;
+	private EObject[] parents = new EObject[16];
+	private int[] features = new int[16];
+	private int[] positions = new int[16];
+	private int depth = -1;
+	private EObject pending;
+	private EObject next;
+
+	/**
+	 * Creates an iterator over elements and their contents.
+	 *
+	 * @param roots the elements to walk
+	 * @param resolve true to resolve the containment proxies (which modifies
+	 *            the containment lists)
+	 */
+	ContentsIterator(List<? extends EObject> roots, boolean resolve) {
+		this.roots = roots;
+		this.resolve = resolve;
+	}
+
+	/**
+	 * Gets the direct contents of an element without resolving them.
+	 *
+	 * @param parent the element
+	 * @return a new list of the contained elements
+	 */
+	static List<EObject> children(EObject parent) {
+		List<EObject> children = new ArrayList<>();
+		for (EReference feature : parent.eClass().getEAllContainments()) {
+			if (feature.isDerived()) {
+				continue;
+			}
+			if (feature.isMany()) {
+				List<?> values = (List<?>) parent.eGet(feature);
+				for (int i = 0; i < values.size(); i++) {
+					children.add(get(values, i, false));
+				}
+			} else {
+				Object value = parent.eGet(feature, false);
+				if (value != null) {
+					children.add((EObject) value);
+				}
+			}
+		}
+		return children;
+	}
+
+	/*
+	 * eGet(feature, false) wraps a many-valued feature in a new list, so the
+	 * list is taken as is and read without resolving the proxies.
+	 */
+	private static EObject get(List<?> values, int i, boolean resolve) {
+		if (!resolve && values instanceof InternalEList<?>) {
+			return (EObject) ((InternalEList<?>) values).basicGet(i);
+		}
+		return (EObject) values.get(i);
+	}
+
+	@Override
+	public boolean hasNext() {
+		if (next == null) {
+			next = advance();
+		}
+		return next != null;
+	}
+
+	@Override
+	public EObject next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		pending = next;
+		next = null;
+		return pending;
+	}
+
+	@Override
+	public void remove() {
+		throw new UnsupportedOperationException("remove");
+	}
+
+	private EObject advance() {
+		if (pending != null) {
+			push(pending);
+			pending = null;
+		}
+		while (depth >= 0) {
+			EObject parent = parents[depth];
+			EList<EReference> containments = parent.eClass().getEAllContainments();
+			while (features[depth] < containments.size()) {
+				EReference feature = containments.get(features[depth]);
+				if (!feature.isDerived()) {
+					if (feature.isMany()) {
+						List<?> values = (List<?>) parent.eGet(feature);
+						if (positions[depth] < values.size()) {
+							return get(values, positions[depth]++, resolve);
+						}
+					} else if (positions[depth]++ == 0) {
+						Object value = parent.eGet(feature, resolve);
+						if (value != null) {
+							return (EObject) value;
+						}
+					}
+				}
+				features[depth]++;
+				positions[depth] = 0;
+			}
+			parents[depth--] = null;
+		}
+		return root < roots.size() ? roots.get(root++) : null;
+	}
+
+	private void push(EObject parent) {
+		if (++depth == parents.length) {
+			parents = Arrays.copyOf(parents, depth * 2);
+			features = Arrays.copyOf(features, depth * 2);
+			positions = Arrays.copyOf(positions, depth * 2);
+		}
+		parents[depth] = parent;
+		features[depth] = 0;
+		positions[depth] = 0;
+	}
+}
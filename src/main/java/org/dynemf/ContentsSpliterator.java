@@ -0,0 +1,113 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2016 Vincent Aranega
+ *
+ * See the file LICENSE for copying permission.
+ *******************************************************************************/
+package org.dynemf;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+import org.eclipse.emf.ecore.EObject;
+
+/**
+ * Splits a list of elements and all their contents for parallel streams. A
+ * spliterator gives away half of the subtrees it has not started yet; when a
+ * single subtree remains, its root is kept to be traversed first and its
+ * contents become the subtrees to split. The elements are wrapped in new
+ * {@link EObjectWrapper}, so they can be collected.
+ *
+ * The traversal is depth-first as long as the spliterator is not split, but
+ * the order is not preserved across the splits.
+ *
+ * @author Vincent Aranega
+ *
+ */
+final class ContentsSpliterator implements Spliterator<EObjectWrapper<?>> {
+	private List<? extends EObject> roots;
+	private int lo;
+	private int hi;
+	// Elements traversed alone, before the subtrees
+	private List<EObject> heads = Collections.emptyList();
+	private int head = 0;
+	private ContentsIterator current;
+	private long estimate;
+
+	ContentsSpliterator(List<? extends EObject> roots) {
+		this(roots, 0, roots.size(), Long.MAX_VALUE);
+	}
+
+	private ContentsSpliterator(List<? extends EObject> roots, int lo, int hi, long estimate) {
+		this.roots = roots;
+		this.lo = lo;
+		this.hi = hi;
+		this.estimate = estimate;
+	}
+
+	@Override
+	public boolean tryAdvance(Consumer<? super EObjectWrapper<?>> action) {
+		EObject next = next();
+		if (next == null) {
+			return false;
+		}
+		action.accept(EObjectWrapper.obj(next));
+		return true;
+	}
+
+	@Override
+	public void forEachRemaining(Consumer<? super EObjectWrapper<?>> action) {
+		for (EObject next = next(); next != null; next = next()) {
+			action.accept(EObjectWrapper.obj(next));
+		}
+	}
+
+	private EObject next() {
+		if (head < heads.size()) {
+			return heads.get(head++);
+		}
+		while (current == null || !current.hasNext()) {
+			if (lo == hi) {
+				current = null;
+				return null;
+			}
+			current = new ContentsIterator(roots.subList(lo, ++lo), false);
+		}
+		return current.next();
+	}
+
+	@Override
+	public Spliterator<EObjectWrapper<?>> trySplit() {
+		// Descends into a single subtree not started yet
+		while (hi - lo == 1) {
+			EObject root = roots.get(lo);
+			if (heads.isEmpty()) {
+				heads = new ArrayList<>();
+			}
+			heads.add(root);
+			roots = ContentsIterator.children(root);
+			lo = 0;
+			hi = roots.size();
+		}
+		if (hi - lo < 2) {
+			return null;
+		}
+		int mid = (lo + hi) >>> 1;
+		estimate >>>= 1;
+		ContentsSpliterator split = new ContentsSpliterator(roots, mid, hi, estimate);
+		hi = mid;
+		return split;
+	}
+
+	@Override
+	public long estimateSize() {
+		return estimate;
+	}
+
+	@Override
+	public int characteristics() {
+		return DISTINCT | NONNULL;
+	}
+}
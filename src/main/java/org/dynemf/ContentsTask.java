@@ -0,0 +1,80 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2016 Vincent Aranega
+ *
+ * See the file LICENSE for copying permission.
+ *******************************************************************************/
+package org.dynemf;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.RecursiveAction;
+
+import org.eclipse.emf.ecore.EObject;
+
+/**
+ * Visits a range of elements and all their contents in a fork-join pool. A
+ * range is split in two halves as long as it holds many elements, and a
+ * single element is visited before its contents are split in turn, so the
+ * tasks follow the shape of the containment tree. The splitting stops as
+ * soon as the pool has enough queued tasks for the idle workers to steal:
+ * the remaining subtrees are then walked sequentially.
+ *
+ * The visitor is given a wrapper per task, re-pointed at each element.
+ *
+ * @author Vincent Aranega
+ *
+ */
+final class ContentsTask extends RecursiveAction {
+	private static final long serialVersionUID = 1L;
+	// Queued tasks beyond which a task stops splitting
+	private static final int SURPLUS = 3;
+	// Levels of the tree beyond which a task stops splitting (bounds the stack)
+	private static final int MAX_DEPTH = 64;
+
+	private final List<? extends EObject> roots;
+	private final int lo;
+	private final int hi;
+	private final int depth;
+	private final EObjectVisitor visitor;
+
+	ContentsTask(List<? extends EObject> roots, EObjectVisitor visitor) {
+		this(roots, 0, roots.size(), 0, visitor);
+	}
+
+	private ContentsTask(List<? extends EObject> roots, int lo, int hi, int depth, EObjectVisitor visitor) {
+		this.roots = roots;
+		this.lo = lo;
+		this.hi = hi;
+		this.depth = depth;
+		this.visitor = visitor;
+	}
+
+	@Override
+	protected void compute() {
+		if (hi - lo > 1 && split()) {
+			int mid = (lo + hi) >>> 1;
+			invokeAll(new ContentsTask(roots, lo, mid, depth, visitor), new ContentsTask(roots, mid, hi, depth,
+					visitor));
+			return;
+		}
+		EObjectCursor cursor = new EObjectCursor(Collections.<EObject> emptyList());
+		if (hi - lo == 1 && split()) {
+			// Visits the element alone, then splits its contents
+			EObject root = roots.get(lo);
+			visitor.visit(cursor.moveTo(root));
+			List<EObject> children = ContentsIterator.children(root);
+			if (!children.isEmpty()) {
+				new ContentsTask(children, 0, children.size(), depth + 1, visitor).compute();
+			}
+			return;
+		}
+		ContentsIterator contents = new ContentsIterator(roots.subList(lo, hi), false);
+		while (contents.hasNext()) {
+			visitor.visit(cursor.moveTo(contents.next()));
+		}
+	}
+
+	private boolean split() {
+		return depth < MAX_DEPTH && getSurplusQueuedTaskCount() <= SURPLUS;
+	}
+}
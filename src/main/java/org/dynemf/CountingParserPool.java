@@ -0,0 +1,83 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2016 Vincent Aranega
+ *
+ * See the file LICENSE for copying permission.
+ *******************************************************************************/
+package org.dynemf;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParser;
+
+import org.eclipse.emf.ecore.xmi.XMLDefaultHandler;
+import org.eclipse.emf.ecore.xmi.XMLHelper;
+import org.eclipse.emf.ecore.xmi.XMLLoad;
+import org.eclipse.emf.ecore.xmi.XMLResource;
+import org.eclipse.emf.ecore.xmi.impl.XMLParserPoolImpl;
+import org.xml.sax.SAXException;
+
+/**
+ * Thread-safe pool of XML parsers and handlers shared by the loads of a
+ * {@link ResourceSetWrapper}, counting how many parsers and handlers are
+ * reused.
+ *
+ * @author Vincent Aranega
+ *
+ */
+final class CountingParserPool extends XMLParserPoolImpl {
+	private final Set<XMLDefaultHandler> handlers = Collections
+			.newSetFromMap(new WeakHashMap<XMLDefaultHandler, Boolean>());
+	private long parserRequests = 0;
+	private long parserMisses = 0;
+	private long handlerRequests = 0;
+	private long handlerMisses = 0;
+
+	CountingParserPool() {
+		super(true);
+	}
+
+	@Override
+	public synchronized SAXParser get(Map<String, Boolean> features, Map<String, ?> properties, boolean useLexicalHandler)
+			throws ParserConfigurationException, SAXException {
+		parserRequests++;
+		return super.get(features, properties, useLexicalHandler);
+	}
+
+	@Override
+	protected SAXParser makeParser(Map<String, Boolean> features, Map<String, ?> properties)
+			throws ParserConfigurationException, SAXException {
+		parserMisses++;
+		return super.makeParser(features, properties);
+	}
+
+	@Override
+	public synchronized XMLDefaultHandler getDefaultHandler(XMLResource resource, XMLLoad xmlLoad, XMLHelper helper,
+			Map<?, ?> options) {
+		XMLDefaultHandler handler = super.getDefaultHandler(resource, xmlLoad, helper, options);
+		handlerRequests++;
+		if (handlers.add(handler)) {
+			handlerMisses++;
+		}
+		return handler;
+	}
+
+	/**
+	 * Gets the parser requests, parser hits, handler requests and handler hits
+	 * (in this order).
+	 */
+	synchronized long[] counts() {
+		return new long[] { parserRequests, parserRequests - parserMisses, handlerRequests,
+				handlerRequests - handlerMisses };
+	}
+
+	synchronized void reset() {
+		parserRequests = 0;
+		parserMisses = 0;
+		handlerRequests = 0;
+		handlerMisses = 0;
+	}
+}
@@ -0,0 +1,221 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2016 Vincent Aranega
+ *
+ * See the file LICENSE for copying permission.
+ *******************************************************************************/
+package org.dynemf;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.common.notify.Notifier;
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.emf.ecore.resource.URIConverter;
+import org.eclipse.emf.ecore.util.EContentAdapter;
+
+/**
+ * Records the changes made on the resources of a {@link ResourceSetWrapper}
+ * (or on a single {@link ResourceWrapper}) as a compact binary log which can
+ * be applied on another resource set holding the same resources in order to
+ * replicate their state. Every modification notified by EMF is recorded,
+ * including the ones performed through {@link EObjectWrapper}.
+ *
+ * The log gathers, for each modified resource, its URI followed by the deltas
+ * of its elements. Existing elements are designated by their URI fragment,
+ * so the resources the log is applied on must be in the same state as the
+ * recorded resources were when the recording started (or when the log was
+ * last flushed).
+ *
+ * <pre>
+ * DeltaLog log = rset.record();
+ * root.set("name", "changed");
+ * byte[] deltas = log.flush();
+ * // elsewhere
+ * replica.apply(deltas);
+ * </pre>
+ *
+ * @author Vincent Aranega
+ *
+ */
+public final class DeltaLog {
+	private static final int MAGIC = 0x444C4F47;
+	private static final byte VERSION = 1;
+
+	private final Notifier target;
+	private final Recorder recorder = new Recorder();
+	private final Map<Resource, DeltaWriter> writers = new LinkedHashMap<>();
+
+	DeltaLog(Notifier target) {
+		this.target = target;
+		target.eAdapters().add(recorder);
+	}
+
+	/**
+	 * Checks if no change has been recorded since the last flush.
+	 *
+	 * @return true if there is no change to flush
+	 */
+	public synchronized boolean isEmpty() {
+		for (DeltaWriter writer : writers.values()) {
+			if (!writer.isEmpty()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Gets the changes recorded since the last flush as a binary log and
+	 * forgets them.
+	 *
+	 * @return the encoded log
+	 * @throws IOException if some changes cannot be encoded as deltas
+	 *             (<i>e.g.</i>: feature maps modifications), the changes are
+	 *             forgotten anyway
+	 */
+	public synchronized byte[] flush() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeInt(MAGIC);
+		out.writeByte(VERSION);
+		IOException failure = null;
+		for (Map.Entry<Resource, DeltaWriter> entry : writers.entrySet()) {
+			DeltaWriter writer = entry.getValue();
+			if (writer.isEmpty()) {
+				continue;
+			}
+			byte[] deltas;
+			try {
+				deltas = writer.drain();
+			} catch (IOException e) {
+				writer.reset();
+				failure = new IOException("Changes of " + entry.getKey().getURI() + " cannot be recorded", e);
+				continue;
+			}
+			DeltaWriter.writeString(out, String.valueOf(entry.getKey().getURI()));
+			out.writeInt(deltas.length);
+			out.write(deltas);
+		}
+		writers.clear();
+		if (failure != null) {
+			throw failure;
+		}
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Writes the changes recorded since the last flush to a stream and
+	 * forgets them.
+	 *
+	 * @param stream the stream to write the log to (it is not closed)
+	 * @return this instance of DeltaLog
+	 * @throws IOException if the log cannot be written or some changes cannot
+	 *             be encoded as deltas
+	 */
+	public DeltaLog flush(OutputStream stream) throws IOException {
+		stream.write(flush());
+		return this;
+	}
+
+	/**
+	 * Stops recording the changes. The changes recorded until now can still
+	 * be flushed.
+	 *
+	 * @return this instance of DeltaLog
+	 */
+	public DeltaLog stop() {
+		target.eAdapters().remove(recorder);
+		return this;
+	}
+
+	private synchronized void record(Resource resource, Notification notification) {
+		DeltaWriter writer = writers.get(resource);
+		if (writer == null) {
+			writer = new DeltaWriter(resource);
+			writers.put(resource, writer);
+		}
+		writer.record(notification);
+	}
+
+	/**
+	 * Applies a log on the resources of a resource set. The resources which
+	 * are not yet in the resource set are opened, or created if they do not
+	 * exist.
+	 *
+	 * @param rset the resource set to modify
+	 * @param in the log
+	 * @throws IOException if the log cannot be read or does not match the
+	 *             resources
+	 */
+	static void apply(ResourceSet rset, InputStream in) throws IOException {
+		DataInputStream data = new DataInputStream(in);
+		if (data.readInt() != MAGIC || data.readByte() != VERSION) {
+			throw new IOException("Not a delta log");
+		}
+		while (true) {
+			URI uri;
+			byte[] deltas;
+			try {
+				uri = URI.createURI(DeltaReader.readString(data));
+			} catch (EOFException e) {
+				break;
+			}
+			deltas = new byte[data.readInt()];
+			data.readFully(deltas);
+			DeltaReader.apply(resource(rset, uri), new DataInputStream(new ByteArrayInputStream(deltas)));
+		}
+	}
+
+	private static Resource resource(ResourceSet rset, URI uri) throws IOException {
+		URIConverter converter = rset.getURIConverter();
+		Resource resource = rset.getResource(uri, false);
+		if (resource == null) {
+			resource = converter.exists(uri, null) ? rset.getResource(uri, true) : rset.createResource(uri);
+		} else if (!resource.isLoaded() && converter.exists(uri, null)) {
+			resource.load(rset.getLoadOptions());
+		}
+		if (resource == null) {
+			throw new IOException("Resource '" + uri + "' cannot be created");
+		}
+		return resource;
+	}
+
+	/*
+	 * Dispatches the notifications to the deltas of their resource.
+	 */
+	private final class Recorder extends EContentAdapter {
+		@Override
+		protected boolean resolve() {
+			return false;
+		}
+
+		@Override
+		public void notifyChanged(Notification notification) {
+			super.notifyChanged(notification);
+			Object notifier = notification.getNotifier();
+			Resource resource;
+			if (notifier instanceof Resource) {
+				resource = (Resource) notifier;
+			} else if (notifier instanceof EObject) {
+				resource = ((EObject) notifier).eResource();
+			} else {
+				return;
+			}
+			if (resource != null && !((Resource.Internal) resource).isLoading()) {
+				record(resource, notification);
+			}
+		}
+	}
+}
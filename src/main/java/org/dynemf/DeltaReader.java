@@ -0,0 +1,310 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2016 Vincent Aranega
+ *
+ * See the file LICENSE for copying permission.
+ *******************************************************************************/
+package org.dynemf;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.common.util.EList;
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EAttribute;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EClassifier;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EPackage;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.emf.ecore.InternalEObject;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+
+/**
+ * Replays on a resource the deltas encoded by a {@link DeltaWriter}.
+ *
+ * @author Vincent Aranega
+ *
+ */
+final class DeltaReader {
+	private final Resource resource;
+	private final DataInputStream in;
+	private final EPackage.Registry packages;
+	// References of the new elements, resolved once the elements are attached
+	private final List<Object[]> references = new ArrayList<>();
+	// Elements removed from their container to be added elsewhere
+	private final Map<Integer, EObject> moved = new HashMap<>();
+
+	private DeltaReader(Resource resource, DataInputStream in) {
+		this.resource = resource;
+		this.in = in;
+		ResourceSet rset = resource.getResourceSet();
+		this.packages = rset != null ? rset.getPackageRegistry() : EPackage.Registry.INSTANCE;
+	}
+
+	/**
+	 * Applies all the deltas of a stream to a resource.
+	 *
+	 * @param resource the resource to modify
+	 * @param in the encoded deltas
+	 * @throws IOException if the deltas cannot be read or do not match the
+	 *             resource
+	 */
+	static void apply(Resource resource, DataInputStream in) throws IOException {
+		DeltaReader reader = new DeltaReader(resource, in);
+		try {
+			while (reader.next()) {
+				// Applies one delta at a time
+			}
+		} catch (RuntimeException e) {
+			throw new IOException("Deltas do not match the resource " + resource.getURI(), e);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private boolean next() throws IOException {
+		int kind = in.read();
+		if (kind < 0) {
+			return false;
+		}
+		String fragment = readString(in);
+		String name = readString(in);
+		int position = in.readInt();
+		EObject holder = null;
+		EStructuralFeature feature = null;
+		EList<Object> list;
+		if (fragment.isEmpty()) {
+			list = (EList<Object>) (EList<?>) resource.getContents();
+		} else {
+			holder = resource.getEObject(fragment);
+			if (holder == null) {
+				throw new IOException("Element '" + fragment + "' does not exist");
+			}
+			feature = holder.eClass().getEStructuralFeature(name);
+			if (feature == null) {
+				throw new IOException("Feature '" + name + "' does not exist");
+			}
+			list = feature.isMany() ? (EList<Object>) holder.eGet(feature) : null;
+		}
+
+		switch (kind) {
+		case DeltaWriter.SET:
+			Object value = value(feature);
+			Object old;
+			if (position != Notification.NO_INDEX) {
+				old = list.set(position, value);
+			} else {
+				old = holder.eGet(feature, false);
+				holder.eSet(feature, value);
+			}
+			moved(feature, old);
+			break;
+		case DeltaWriter.UNSET:
+			old = feature.isMany() ? null : holder.eGet(feature, false);
+			holder.eUnset(feature);
+			moved(feature, old);
+			break;
+		case DeltaWriter.ADD:
+			value = value(feature);
+			if (!(list.contains(value) && feature != null && feature.isUnique())) {
+				list.add(position, value);
+			}
+			break;
+		case DeltaWriter.ADD_MANY:
+			int size = in.readInt();
+			List<Object> values = new ArrayList<>(size);
+			for (int i = 0; i < size; i++) {
+				values.add(value(feature));
+			}
+			list.addAll(position, values);
+			break;
+		case DeltaWriter.REMOVE:
+			moved(feature, list.remove(position));
+			break;
+		case DeltaWriter.REMOVE_MANY:
+			size = in.readInt();
+			int[] positions = new int[size];
+			for (int i = 0; i < size; i++) {
+				positions[i] = in.readInt();
+			}
+			Object[] olds = new Object[size];
+			for (int i = size - 1; i >= 0; i--) {
+				olds[i] = list.remove(positions[i]);
+			}
+			for (Object removed : olds) {
+				moved(feature, removed);
+			}
+			break;
+		case DeltaWriter.MOVE:
+			list.move(position, in.readInt());
+			break;
+		case DeltaWriter.REFERENCES:
+			size = in.readInt();
+			values = new ArrayList<>(size);
+			for (int i = 0; i < size; i++) {
+				values.add(value(feature));
+			}
+			holder.eSet(feature, feature.isMany() ? values : values.get(0));
+			break;
+		default:
+			throw new IOException("Unknown delta kind " + kind);
+		}
+		resolveReferences();
+		return true;
+	}
+
+	private Object value(EStructuralFeature feature) throws IOException {
+		int tag = in.readByte();
+		switch (tag) {
+		case DeltaWriter.NULL:
+			return null;
+		case DeltaWriter.VALUE:
+			return EcoreUtil.createFromString(((EAttribute) feature).getEAttributeType(), readString(in));
+		case DeltaWriter.OBJECT:
+			return object();
+		case DeltaWriter.MOVED:
+			EObject obj = moved.remove(in.readInt());
+			if (obj == null) {
+				throw new IOException("Moved element does not exist");
+			}
+			return obj;
+		case DeltaWriter.LOCAL:
+			String fragment = readString(in);
+			EObject target = resource.getEObject(fragment);
+			if (target == null) {
+				throw new IOException("Element '" + fragment + "' does not exist");
+			}
+			return target;
+		case DeltaWriter.EXTERNAL:
+			EClass eClass = eClass(readString(in), readString(in));
+			InternalEObject proxy = (InternalEObject) EcoreUtil.create(eClass);
+			proxy.eSetProxyURI(URI.createURI(readString(in)));
+			return proxy;
+		default:
+			throw new EOFException("Unknown value tag " + tag);
+		}
+	}
+
+	/*
+	 * Keeps a removed element if it is added elsewhere afterwards.
+	 */
+	private void moved(EStructuralFeature feature, Object old) throws IOException {
+		if (!DeltaWriter.isContainment(feature)) {
+			return;
+		}
+		int id = in.readInt();
+		if (id >= 0) {
+			moved.put(id, (EObject) old);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private EObject object() throws IOException {
+		EObject obj = EcoreUtil.create(eClass(readString(in), readString(in)));
+		int features = in.readInt();
+		for (int i = 0; i < features; i++) {
+			String name = readString(in);
+			EStructuralFeature feature = obj.eClass().getEStructuralFeature(name);
+			if (feature == null) {
+				throw new IOException("Feature '" + name + "' does not exist");
+			}
+			boolean deferred = feature instanceof EReference && !((EReference) feature).isContainment();
+			if (feature.isMany()) {
+				int size = in.readInt();
+				List<Object> values = new ArrayList<>(size);
+				for (int j = 0; j < size; j++) {
+					values.add(deferred ? (Object) rawReference() : value(feature));
+				}
+				if (deferred) {
+					references.add(new Object[] { obj, feature, values });
+				} else {
+					((EList<Object>) obj.eGet(feature)).addAll(values);
+				}
+			} else if (deferred) {
+				references.add(new Object[] { obj, feature, rawReference() });
+			} else {
+				obj.eSet(feature, value(feature));
+			}
+		}
+		return obj;
+	}
+
+	/*
+	 * Reads a reference of a new element without resolving it: local targets
+	 * are designated relatively to the resource once the element is attached.
+	 */
+	private Object[] rawReference() throws IOException {
+		int tag = in.readByte();
+		switch (tag) {
+		case DeltaWriter.NULL:
+			return new Object[] { tag };
+		case DeltaWriter.LOCAL:
+			return new Object[] { tag, readString(in) };
+		case DeltaWriter.EXTERNAL:
+			return new Object[] { tag, readString(in), readString(in), readString(in) };
+		default:
+			throw new EOFException("Unknown reference tag " + tag);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private void resolveReferences() throws IOException {
+		for (Object[] pending : references) {
+			EObject obj = (EObject) pending[0];
+			EStructuralFeature feature = (EStructuralFeature) pending[1];
+			if (feature.isMany()) {
+				EList<Object> list = (EList<Object>) obj.eGet(feature);
+				for (Object raw : (List<?>) pending[2]) {
+					Object target = resolve((Object[]) raw);
+					if (target != null) {
+						list.add(target);
+					}
+				}
+			} else {
+				obj.eSet(feature, resolve((Object[]) pending[2]));
+			}
+		}
+		references.clear();
+	}
+
+	private Object resolve(Object[] raw) throws IOException {
+		int tag = (Integer) raw[0];
+		if (tag == DeltaWriter.NULL) {
+			return null;
+		}
+		if (tag == DeltaWriter.LOCAL) {
+			EObject target = resource.getEObject((String) raw[1]);
+			if (target == null) {
+				throw new IOException("Element '" + raw[1] + "' does not exist");
+			}
+			return target;
+		}
+		InternalEObject proxy = (InternalEObject) EcoreUtil.create(eClass((String) raw[1], (String) raw[2]));
+		proxy.eSetProxyURI(URI.createURI((String) raw[3]));
+		return proxy;
+	}
+
+	private EClass eClass(String nsUri, String name) throws IOException {
+		EPackage pack = packages.getEPackage(nsUri);
+		EClassifier eClass = pack == null ? null : pack.getEClassifier(name);
+		if (!(eClass instanceof EClass)) {
+			throw new IOException("EClass '" + name + "' does not exist in '" + nsUri + "'");
+		}
+		return (EClass) eClass;
+	}
+
+	static String readString(DataInputStream in) throws IOException {
+		byte[] data = new byte[in.readInt()];
+		in.readFully(data);
+		return new String(data, StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,464 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2016 Vincent Aranega
+ *
+ * See the file LICENSE for copying permission.
+ *******************************************************************************/
+package org.dynemf;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.ecore.EAttribute;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.emf.ecore.InternalEObject;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.emf.ecore.util.FeatureMapUtil;
+
+/**
+ * Encodes the notifications of the elements of a resource as compact binary
+ * deltas which can be replayed on another copy of the resource by a
+ * {@link DeltaReader}. Elements are designated by their URI fragment at the
+ * time of the change, new elements are encoded with their whole contents.
+ *
+ * Changes which cannot be replayed from the deltas (feature maps, elements
+ * moved in a way shifting their former container, references towards
+ * elements out of any resource) make the writer invalid: the resource must
+ * then be saved as a whole.
+ *
+ * @author Vincent Aranega
+ *
+ */
+final class DeltaWriter {
+	static final byte SET = 1;
+	static final byte UNSET = 2;
+	static final byte ADD = 3;
+	static final byte ADD_MANY = 4;
+	static final byte REMOVE = 5;
+	static final byte REMOVE_MANY = 6;
+	static final byte MOVE = 7;
+	static final byte REFERENCES = 8;
+
+	static final byte NULL = 0;
+	static final byte LOCAL = 1;
+	static final byte EXTERNAL = 2;
+	static final byte OBJECT = 3;
+	static final byte VALUE = 4;
+	static final byte MOVED = 5;
+
+	private final Resource resource;
+	private ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+	private DataOutputStream out = new DataOutputStream(bytes);
+	private final Map<EObject, Set<EReference>> dangling = new LinkedHashMap<>();
+	private final Map<EObject, Move> moved = new IdentityHashMap<>();
+	private int moves = 0;
+	private int count = 0;
+	private boolean valid = true;
+
+	DeltaWriter(Resource resource) {
+		this.resource = resource;
+	}
+
+	/**
+	 * Records a notification of the resource or of one of its elements.
+	 *
+	 * @param notification the notification to record
+	 */
+	void record(Notification notification) {
+		if (!valid || notification.isTouch()) {
+			return;
+		}
+		Object notifier = notification.getNotifier();
+		EStructuralFeature feature = null;
+		EObject holder = null;
+		if (notifier instanceof Resource) {
+			if (notification.getFeatureID(Resource.class) != Resource.RESOURCE__CONTENTS) {
+				return;
+			}
+		} else if (notifier instanceof EObject && notification.getFeature() instanceof EStructuralFeature) {
+			holder = (EObject) notifier;
+			feature = (EStructuralFeature) notification.getFeature();
+			if (!isRecorded(feature)) {
+				return;
+			}
+		} else {
+			return;
+		}
+		try {
+			write(notification, holder, feature);
+			count++;
+		} catch (IOException | RuntimeException e) {
+			valid = false;
+		}
+	}
+
+	/*
+	 * Features which are not saved, and the side of bidirectional references
+	 * automatically maintained by the other side, are not recorded.
+	 */
+	private boolean isRecorded(EStructuralFeature feature) {
+		if (feature.isTransient() || feature.isDerived()) {
+			return false;
+		}
+		if (FeatureMapUtil.isFeatureMap(feature)) {
+			valid = false;
+			return false;
+		}
+		if (feature instanceof EReference) {
+			EReference opposite = ((EReference) feature).getEOpposite();
+			if (((EReference) feature).isContainer()) {
+				return false;
+			}
+			if (opposite != null && opposite != feature && !opposite.isTransient() && !opposite.isContainer()) {
+				return EcoreUtil.getURI(feature).toString().compareTo(EcoreUtil.getURI(opposite).toString()) < 0;
+			}
+		}
+		return true;
+	}
+
+	private void write(Notification notification, EObject holder, EStructuralFeature feature) throws IOException {
+		if (holder != null && holder.eResource() != resource) {
+			valid = false;
+			return;
+		}
+		int position = notification.getPosition();
+		switch (notification.getEventType()) {
+		case Notification.SET:
+			int id = removed(holder, feature, notification.getOldValue());
+			added(holder, feature, position, notification.getNewValue());
+			header(SET, holder, feature, position);
+			value(holder, feature, notification.getNewValue());
+			moved(feature, id);
+			break;
+		case Notification.UNSET:
+			id = removed(holder, feature, notification.getOldValue());
+			header(UNSET, holder, feature, position);
+			moved(feature, id);
+			break;
+		case Notification.ADD:
+			added(holder, feature, position, notification.getNewValue());
+			header(ADD, holder, feature, position);
+			value(holder, feature, notification.getNewValue());
+			break;
+		case Notification.ADD_MANY:
+			Collection<?> values = (Collection<?>) notification.getNewValue();
+			int index = position;
+			for (Object value : values) {
+				added(holder, feature, index++, value);
+			}
+			header(ADD_MANY, holder, feature, position);
+			out.writeInt(values.size());
+			for (Object value : values) {
+				value(holder, feature, value);
+			}
+			break;
+		case Notification.REMOVE:
+			id = removed(holder, feature, notification.getOldValue());
+			header(REMOVE, holder, feature, position);
+			moved(feature, id);
+			break;
+		case Notification.REMOVE_MANY:
+			Collection<?> olds = (Collection<?>) notification.getOldValue();
+			int[] ids = new int[olds.size()];
+			int i = 0;
+			for (Object old : olds) {
+				ids[i++] = removed(holder, feature, old);
+			}
+			int[] positions = (int[]) notification.getNewValue();
+			header(REMOVE_MANY, holder, feature, position);
+			out.writeInt(olds.size());
+			for (i = 0; i < olds.size(); i++) {
+				out.writeInt(positions == null ? i : positions[i]);
+			}
+			for (i = 0; i < olds.size(); i++) {
+				moved(feature, ids[i]);
+			}
+			break;
+		case Notification.MOVE:
+			header(MOVE, holder, feature, position);
+			out.writeInt((Integer) notification.getOldValue());
+			break;
+		default:
+			return;
+		}
+	}
+
+	private void header(byte kind, EObject holder, EStructuralFeature feature, int position) throws IOException {
+		out.writeByte(kind);
+		writeString(out, holder == null ? "" : resource.getURIFragment(holder));
+		writeString(out, feature == null ? "" : feature.getName());
+		out.writeInt(position);
+	}
+
+	/*
+	 * An element removed from its container while still being contained is
+	 * moved: it gets an identifier so the following add reuses the same
+	 * element (keeping the references towards it), and its former container
+	 * is remembered to check the add.
+	 */
+	private int removed(EObject holder, EStructuralFeature feature, Object old) {
+		if (!isContainment(feature)) {
+			return -1;
+		}
+		if (old instanceof EObject && (((EObject) old).eContainer() != null || ((EObject) old).eResource() != null)) {
+			Move move = new Move(holder, moves++);
+			moved.put((EObject) old, move);
+			return move.id;
+		}
+		return -1;
+	}
+
+	/*
+	 * Writes the identifier of a removed element (-1 if it is not moved) for
+	 * the containments.
+	 */
+	private void moved(EStructuralFeature feature, int id) throws IOException {
+		if (isContainment(feature)) {
+			out.writeInt(id);
+		}
+	}
+
+	/**
+	 * Checks if a feature contains elements (null designates the contents of
+	 * the resource).
+	 */
+	static boolean isContainment(EStructuralFeature feature) {
+		return feature == null || (feature instanceof EReference && ((EReference) feature).isContainment());
+	}
+
+	/*
+	 * Fragments are computed after the whole move: the former container of a
+	 * moved element must not be shifted by the insertion.
+	 */
+	private void added(EObject holder, EStructuralFeature feature, int position, Object value) {
+		Move move = moved.get(value);
+		if (move == null) {
+			return;
+		}
+		EObject former = move.former;
+		EObject child = former;
+		while (child != null && child.eContainer() != holder) {
+			child = child.eContainer();
+		}
+		if (holder == null) {
+			child = former == null ? null : EcoreUtil.getRootContainer(former);
+			if (child != null && child.eResource() == resource
+					&& resource.getContents().indexOf(child) >= position) {
+				valid = false;
+			}
+		} else if (child != null && child.eContainingFeature() == feature) {
+			if (!feature.isMany() || ((List<?>) holder.eGet(feature)).indexOf(child) >= position) {
+				valid = false;
+			}
+		}
+	}
+
+	private void value(EObject holder, EStructuralFeature feature, Object value) throws IOException {
+		if (isContainment(feature)) {
+			if (value == null) {
+				out.writeByte(NULL);
+				return;
+			}
+			Move move = moved.remove(value);
+			if (move != null) {
+				out.writeByte(MOVED);
+				out.writeInt(move.id);
+				return;
+			}
+			out.writeByte(OBJECT);
+			object((EObject) value);
+		} else if (feature instanceof EReference) {
+			reference(holder, (EReference) feature, (EObject) value);
+		} else {
+			attribute((EAttribute) feature, value);
+		}
+	}
+
+	private void attribute(EAttribute attribute, Object value) throws IOException {
+		if (value == null) {
+			out.writeByte(NULL);
+			return;
+		}
+		out.writeByte(VALUE);
+		writeString(out, EcoreUtil.convertToString(attribute.getEAttributeType(), value));
+	}
+
+	private void reference(EObject holder, EReference reference, EObject target) throws IOException {
+		if (target == null) {
+			out.writeByte(NULL);
+		} else if (target.eIsProxy()) {
+			external(target, ((InternalEObject) target).eProxyURI().toString());
+		} else if (target.eResource() == resource) {
+			out.writeByte(LOCAL);
+			writeString(out, resource.getURIFragment(target));
+		} else if (target.eResource() != null) {
+			external(target, EcoreUtil.getURI(target).toString());
+		} else {
+			// Out of any resource for now: the whole reference is written again
+			// when the deltas are drained
+			out.writeByte(NULL);
+			Set<EReference> references = dangling.get(holder);
+			if (references == null) {
+				references = new LinkedHashSet<>();
+				dangling.put(holder, references);
+			}
+			references.add(reference);
+		}
+	}
+
+	private void external(EObject target, String uri) throws IOException {
+		out.writeByte(EXTERNAL);
+		writeString(out, target.eClass().getEPackage().getNsURI());
+		writeString(out, target.eClass().getName());
+		writeString(out, uri);
+	}
+
+	/*
+	 * Writes a new element with its attributes, its contents and its
+	 * references.
+	 */
+	private void object(EObject obj) throws IOException {
+		EClass eClass = obj.eClass();
+		writeString(out, eClass.getEPackage().getNsURI());
+		writeString(out, eClass.getName());
+		List<EStructuralFeature> features = new ArrayList<>();
+		for (EStructuralFeature feature : eClass.getEAllStructuralFeatures()) {
+			if (obj.eIsSet(feature) && isSaved(feature)) {
+				features.add(feature);
+			}
+		}
+		out.writeInt(features.size());
+		for (EStructuralFeature feature : features) {
+			writeString(out, feature.getName());
+			Object value = obj.eGet(feature, false);
+			if (feature.isMany()) {
+				List<?> values = (List<?>) value;
+				out.writeInt(values.size());
+				for (Object v : values) {
+					value(obj, feature, v);
+				}
+			} else {
+				value(obj, feature, value);
+			}
+		}
+	}
+
+	private boolean isSaved(EStructuralFeature feature) {
+		if (feature.isTransient() || feature.isDerived()
+				|| (feature instanceof EReference && ((EReference) feature).isContainer())) {
+			return false;
+		}
+		if (FeatureMapUtil.isFeatureMap(feature)) {
+			valid = false;
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Checks if all the changes recorded until now can be replayed.
+	 */
+	boolean isValid() {
+		return valid;
+	}
+
+	/**
+	 * Checks if no change has been recorded since the last drain.
+	 */
+	boolean isEmpty() {
+		return count == 0;
+	}
+
+	/**
+	 * Gets the deltas recorded since the last drain and starts a new batch.
+	 * The references towards elements which were out of any resource when
+	 * they were set are written again with their current value.
+	 *
+	 * @return the encoded deltas
+	 * @throws IOException if some changes cannot be replayed
+	 */
+	byte[] drain() throws IOException {
+		if (valid) {
+			try {
+				for (Map.Entry<EObject, Set<EReference>> entry : dangling.entrySet()) {
+					EObject holder = entry.getKey();
+					if (holder.eResource() != resource) {
+						continue;
+					}
+					for (EReference reference : entry.getValue()) {
+						references(holder, reference);
+					}
+				}
+			} catch (RuntimeException e) {
+				valid = false;
+			}
+		}
+		if (!valid) {
+			throw new IOException("Recorded changes cannot be replayed, the resource must be saved as a whole");
+		}
+		byte[] result = bytes.toByteArray();
+		reset();
+		return result;
+	}
+
+	private void references(EObject holder, EReference reference) throws IOException {
+		List<?> targets = reference.isMany() ? (List<?>) holder.eGet(reference, false)
+				: Collections.singletonList(holder.eGet(reference, false));
+		header(REFERENCES, holder, reference, Notification.NO_INDEX);
+		out.writeInt(targets.size());
+		for (Object target : targets) {
+			EObject obj = (EObject) target;
+			if (obj != null && !obj.eIsProxy() && obj.eResource() == null) {
+				valid = false;
+				return;
+			}
+			reference(holder, reference, obj);
+		}
+		count++;
+	}
+
+	/**
+	 * Forgets the recorded changes (<i>e.g.</i>: after the resource has been
+	 * saved as a whole).
+	 */
+	void reset() {
+		bytes = new ByteArrayOutputStream();
+		out = new DataOutputStream(bytes);
+		dangling.clear();
+		moved.clear();
+		moves = 0;
+		count = 0;
+		valid = true;
+	}
+
+	private static final class Move {
+		final EObject former;
+		final int id;
+
+		Move(EObject former, int id) {
+			this.former = former;
+			this.id = id;
+		}
+	}
+
+	static void writeString(DataOutputStream out, String value) throws IOException {
+		byte[] data = value.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(data.length);
+		out.write(data);
+	}
+}
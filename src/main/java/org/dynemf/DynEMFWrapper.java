@@ -30,7 +30,9 @@ public abstract class DynEMFWrapper<T> {
 
 	@Override
 	public boolean equals(Object other) {
-		if (other instanceof DynEMFWrapper) {
+		if (other == this) {
+			return true;
+		} else if (other instanceof DynEMFWrapper) {
 			return obj.equals(((DynEMFWrapper<?>) other).result());
 		} else {
 			return obj.equals(other);
@@ -0,0 +1,153 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2016 Vincent Aranega
+ *
+ * See the file LICENSE for copying permission.
+ *******************************************************************************/
+package org.dynemf;
+
+import java.lang.reflect.Array;
+
+import org.eclipse.emf.common.util.BasicEList;
+import org.eclipse.emf.common.util.EList;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EFactory;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EStructuralFeature;
+
+/**
+ * Creates instances of a meta-class already resolved, without any name
+ * lookup. A creator is bound to the {@link EClass} it has been built for: if
+ * the metamodel is re-registered, a new creator must be requested from the
+ * {@link EPackageWrapper}.
+ * 
+ * @author Vincent Aranega
+ *
+ * @param <T> The EObject type created (basis is EObject).
+ */
+public class EObjectCreator<T extends EObject> {
+	/**
+	 * Initializes the instances created in bulk.
+	 *
+	 * @param <T> The EObject type initialized.
+	 */
+	public interface Initializer<T extends EObject> {
+		/**
+		 * Initializes the i-th created instance. The given wrapper is reused
+		 * from one call to another and must not be kept.
+		 * 
+		 * @param obj the created instance
+		 * @param i the position of the instance in the created list
+		 */
+		void init(EObjectWrapper<T> obj, int i);
+	}
+
+	protected final EFactory factory;
+	protected final EClass eClass;
+
+	EObjectCreator(EFactory factory, EClass eClass) {
+		this.factory = factory;
+		this.eClass = eClass;
+	}
+
+	/**
+	 * Creates a new instance wrapped in an {@link EObjectWrapper}.
+	 * 
+	 * @return a new EObjectWrapper with the new created instance
+	 */
+	public EObjectWrapper<T> create() {
+		return new EObjectWrapper<T>(createEObject());
+	}
+
+	/**
+	 * Creates a new instance without wrapping it.
+	 * 
+	 * @return the new created instance
+	 */
+	@SuppressWarnings("unchecked")
+	public T createEObject() {
+		return (T) factory.create(eClass);
+	}
+
+	/**
+	 * Creates n new instances. The returned list is pre-sized and can be
+	 * attached to a collection in one operation using
+	 * {@link EObjectWrapper#addAll(String, java.util.Collection)}.
+	 * 
+	 * @param n the number of instances to create
+	 * @return a list of n new instances
+	 */
+	public EList<T> create(int n) {
+		EList<T> result = new BasicEList<>(n);
+		for (int i = 0; i < n; i++) {
+			result.add(createEObject());
+		}
+		return result;
+	}
+
+	/**
+	 * Creates n new instances and initializes each of them.
+	 * 
+	 * @param n the number of instances to create
+	 * @param init the initializer called for each created instance
+	 * @return a list of n new instances
+	 */
+	public EList<T> create(int n, Initializer<T> init) {
+		EList<T> result = new BasicEList<>(n);
+		EObjectWrapper<T> wrapper = new EObjectWrapper<T>(null);
+		for (int i = 0; i < n; i++) {
+			T eobj = createEObject();
+			wrapper.obj = eobj;
+			init.init(wrapper, i);
+			result.add(eobj);
+		}
+		return result;
+	}
+
+	/**
+	 * Creates n new instances and initializes their features from columns: the
+	 * i-th instance receives the i-th value of each column. A column is an
+	 * array (of objects or primitives) with at least n values.
+	 * 
+	 * <pre>
+	 * mm.creator("A").create(3, new String[] { "name" }, new Object[] { new String[] { "a1", "a2", "a3" } });
+	 * </pre>
+	 * 
+	 * @param n the number of instances to create
+	 * @param names the names of the features to initialize
+	 * @param columns the values of the features, one array per feature
+	 * @return a list of n new instances
+	 */
+	public EList<T> create(int n, String[] names, Object[] columns) {
+		if (names.length != columns.length) {
+			throw new RuntimeException("Expected " + names.length + " columns, got " + columns.length);
+		}
+		EStructuralFeature[] features = new EStructuralFeature[names.length];
+		for (int j = 0; j < names.length; j++) {
+			features[j] = eClass.getEStructuralFeature(names[j]);
+			if (features[j] == null) {
+				throw new RuntimeException("Feature '" + names[j] + "' does not exist");
+			}
+			if (Array.getLength(columns[j]) < n) {
+				throw new RuntimeException("Column '" + names[j] + "' has less than " + n + " values");
+			}
+		}
+		EList<T> result = new BasicEList<>(n);
+		for (int i = 0; i < n; i++) {
+			T eobj = createEObject();
+			for (int j = 0; j < features.length; j++) {
+				eobj.eSet(features[j], Array.get(columns[j], i));
+			}
+			result.add(eobj);
+		}
+		return result;
+	}
+
+	/**
+	 * Gets the meta-class instantiated by this creator.
+	 * 
+	 * @return the instantiated EClass
+	 */
+	public EClass eClass() {
+		return this.eClass;
+	}
+}
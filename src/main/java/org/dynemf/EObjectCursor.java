@@ -0,0 +1,95 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2016 Vincent Aranega
+ *
+ * See the file LICENSE for copying permission.
+ *******************************************************************************/
+package org.dynemf;
+
+import java.util.Iterator;
+import java.util.List;
+
+import org.eclipse.emf.ecore.EObject;
+
+/**
+ * Represents an {@link EObjectWrapper} re-pointed at successive elements, so
+ * a scan gets the whole wrapper API without creating a wrapper per element:
+ *
+ * <pre>
+ * EObjectCursor c = resource.cursor();
+ * while (c.next()) {
+ * 	total += c.getDouble("weight");
+ * }
+ * </pre>
+ *
+ * The cursor is the same object whatever the element it points at: it must
+ * not be kept (or put in a collection) beyond the current step, use
+ * {@link #copy()} instead. Before the first call to {@link #next()} and once
+ * the elements are exhausted, the cursor wraps null.
+ *
+ * @author Vincent Aranega
+ *
+ */
+public final class EObjectCursor extends EObjectWrapper<EObject> {
+	private final List<? extends EObject> list;
+	private final Iterator<? extends EObject> iterator;
+	private int index = 0;
+
+	EObjectCursor(List<? extends EObject> list) {
+		super(null);
+		this.list = list;
+		this.iterator = null;
+	}
+
+	EObjectCursor(Iterator<? extends EObject> iterator) {
+		super(null);
+		this.list = null;
+		this.iterator = iterator;
+	}
+
+	/**
+	 * Builds a cursor over a list of elements and all their contents (in
+	 * depth-first order).
+	 *
+	 * @param roots the elements to walk
+	 * @return a new EObjectCursor placed before the first element
+	 */
+	static EObjectCursor contents(List<? extends EObject> roots) {
+		return new EObjectCursor(new ContentsIterator(roots, true));
+	}
+
+	/**
+	 * Moves the cursor to the next element.
+	 *
+	 * @return true if the cursor points at the next element, false if there
+	 *         is no more element
+	 */
+	public boolean next() {
+		if (list != null) {
+			obj = index < list.size() ? list.get(index++) : null;
+		} else {
+			obj = iterator.hasNext() ? iterator.next() : null;
+		}
+		return obj != null;
+	}
+
+	/**
+	 * Points the cursor at an element, whatever its source.
+	 *
+	 * @param o the element to point at
+	 * @return this instance of EObjectCursor
+	 */
+	public EObjectCursor moveTo(EObject o) {
+		obj = o;
+		return this;
+	}
+
+	/**
+	 * Wraps the current element in a new {@link EObjectWrapper} which can be
+	 * kept.
+	 *
+	 * @return a new instance of EObjectWrapper
+	 */
+	public EObjectWrapper<EObject> copy() {
+		return EObjectWrapper.obj(obj);
+	}
+}
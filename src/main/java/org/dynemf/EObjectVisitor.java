@@ -0,0 +1,23 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2016 Vincent Aranega
+ *
+ * See the file LICENSE for copying permission.
+ *******************************************************************************/
+package org.dynemf;
+
+/**
+ * Callback receiving the elements of a model one by one.
+ * 
+ * @author Vincent Aranega
+ *
+ */
+public interface EObjectVisitor {
+	/**
+	 * Visits an element. Unless stated otherwise by the method calling the
+	 * visitor, the given wrapper is only valid during the call and must not be
+	 * kept.
+	 * 
+	 * @param obj the visited element
+	 */
+	void visit(EObjectWrapper<?> obj);
+}
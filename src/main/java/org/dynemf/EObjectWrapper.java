@@ -5,13 +5,20 @@
  *******************************************************************************/
 package org.dynemf;
 
-import java.util.LinkedList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
 
+import org.eclipse.emf.common.util.BasicEList;
 import org.eclipse.emf.common.util.EList;
-import org.eclipse.emf.ecore.EEnumLiteral;
+import org.eclipse.emf.ecore.EClass;
 import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EReference;
 import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.emf.ecore.util.InternalEList;
 
 /**
  * Wraps an {@link EObject} and provides facilities to handle it.
@@ -21,6 +28,8 @@ import org.eclipse.emf.ecore.EStructuralFeature;
  * @param <T> The EObject type wrapped (basis is EObject).
  */
 public class EObjectWrapper<T extends EObject> extends ValueWrapper<T> {
+	// Cache looked up for the wrappers built from this one, or null
+	WrapperCache cache;
 
 	EObjectWrapper(T eobj) {
 		super(eobj);
@@ -35,7 +44,19 @@ public class EObjectWrapper<T extends EObject> extends ValueWrapper<T> {
 	 * @return this instance of EObjectWrapper
 	 */
 	public EObjectWrapper<T> set(String name, Object value) {
-		EStructuralFeature feature = result().eClass().getEStructuralFeature(name);
+		return set(feature(name), value);
+	}
+
+	/**
+	 * Sets a value to an already resolved feature. The value can be a "basic"
+	 * element (Integer, Boolean...) an {@link EObject} or an
+	 * {@link EObjectWrapper}.
+	 * 
+	 * @param feature the feature to set
+	 * @param value the value of the feature
+	 * @return this instance of EObjectWrapper
+	 */
+	public EObjectWrapper<T> set(EStructuralFeature feature, Object value) {
 		if (value instanceof EObjectWrapper) {
 			result().eSet(feature, ((EObjectWrapper<?>) value).result());
 		} else {
@@ -51,7 +72,17 @@ public class EObjectWrapper<T extends EObject> extends ValueWrapper<T> {
 	 * @return this instance of EObjectWrapper.
 	 */
 	public EObjectWrapper<T> unset(String name) {
-		result().eUnset(result().eClass().getEStructuralFeature(name));
+		return unset(feature(name));
+	}
+
+	/**
+	 * Unsets an already resolved feature.
+	 * 
+	 * @param feature the feature to unset
+	 * @return this instance of EObjectWrapper.
+	 */
+	public EObjectWrapper<T> unset(EStructuralFeature feature) {
+		result().eUnset(feature);
 		return this;
 	}
 
@@ -63,14 +94,27 @@ public class EObjectWrapper<T extends EObject> extends ValueWrapper<T> {
 	 * @param values the elements to add to the collection
 	 * @return this instance of EObjectWrapper
 	 */
-	@SuppressWarnings("unchecked")
 	public EObjectWrapper<T> add(String name, Object... values) {
-		EStructuralFeature feature = result().eClass().getEStructuralFeature(name);
+		EStructuralFeature feature = feature(name);
 		if (feature == null) {
 			throw new RuntimeException("Feature '" + name + "' does not exist");
 		}
+		return add(feature, values);
+	}
+
+	/**
+	 * Adds elements to an already resolved collection. The element can be an
+	 * {@link EObject} instance or an {@link EObjectWrapper}.
+	 * 
+	 * @param feature the collection feature
+	 * @param values the elements to add to the collection
+	 * @return this instance of EObjectWrapper
+	 */
+	@SuppressWarnings("unchecked")
+	public EObjectWrapper<T> add(EStructuralFeature feature, Object... values) {
 		if (!feature.isMany()) {
-			throw new RuntimeException("Feature '" + name + "' is not many, you must use set() instead of add().");
+			throw new RuntimeException("Feature '" + feature.getName()
+					+ "' is not many, you must use set() instead of add().");
 		}
 		List<Object> list = (List<Object>) result().eGet(feature);
 		for (Object o : values) {
@@ -83,6 +127,78 @@ public class EObjectWrapper<T extends EObject> extends ValueWrapper<T> {
 		return this;
 	}
 
+	/**
+	 * Adds many elements to a collection in one operation: the collection is
+	 * grown once and a single notification is emitted. The elements can be
+	 * {@link EObject} instances or {@link EObjectWrapper}.
+	 * 
+	 * @param name the name of the collection
+	 * @param values the elements to add to the collection
+	 * @return this instance of EObjectWrapper
+	 */
+	public EObjectWrapper<T> addAll(String name, Collection<?> values) {
+		EStructuralFeature feature = feature(name);
+		if (feature == null) {
+			throw new RuntimeException("Feature '" + name + "' does not exist");
+		}
+		return addAll(feature, values);
+	}
+
+	/**
+	 * Adds many elements to an already resolved collection in one operation:
+	 * the collection is grown once and a single notification is emitted. The
+	 * elements can be {@link EObject} instances or {@link EObjectWrapper}.
+	 * 
+	 * @param feature the collection feature
+	 * @param values the elements to add to the collection
+	 * @return this instance of EObjectWrapper
+	 */
+	@SuppressWarnings("unchecked")
+	public EObjectWrapper<T> addAll(EStructuralFeature feature, Collection<?> values) {
+		if (!feature.isMany()) {
+			throw new RuntimeException("Feature '" + feature.getName()
+					+ "' is not many, you must use set() instead of addAll().");
+		}
+		List<Object> list = (List<Object>) result().eGet(feature);
+		if (list instanceof BasicEList) {
+			((BasicEList<Object>) list).grow(list.size() + values.size());
+		}
+		if (!(list instanceof InternalEList) || !feature.isUnique()) {
+			list.addAll(unwrap(values));
+			return this;
+		}
+		// Uniqueness is checked once for the whole batch instead of once per
+		// element by EMF
+		boolean containment = feature instanceof EReference && ((EReference) feature).isContainment();
+		Set<Object> present = feature instanceof EReference
+				? Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>(values.size()))
+				: new HashSet<Object>();
+		if (!containment) {
+			present.addAll(list);
+		}
+		List<Object> added = new BasicEList<>(values.size());
+		for (Object o : values) {
+			Object e = o instanceof EObjectWrapper ? ((EObjectWrapper<?>) o).result() : o;
+			if (containment && ((EObject) e).eContainer() == result()
+					&& ((EObject) e).eContainmentFeature() == feature) {
+				continue;
+			}
+			if (present.add(e)) {
+				added.add(e);
+			}
+		}
+		((InternalEList<Object>) list).addAllUnique(added);
+		return this;
+	}
+
+	private static Collection<?> unwrap(Collection<?> values) {
+		List<Object> result = new BasicEList<>(values.size());
+		for (Object o : values) {
+			result.add(o instanceof EObjectWrapper ? ((EObjectWrapper<?>) o).result() : o);
+		}
+		return result;
+	}
+
 	/**
 	 * Removes elements from a collection. The elemnent can be an
 	 * {@link EObject} instance or an {@link EObjectWrapper}.
@@ -91,9 +207,20 @@ public class EObjectWrapper<T extends EObject> extends ValueWrapper<T> {
 	 * @param value the elements to remove
 	 * @return this instance of EObjectWrapper
 	 */
-	@SuppressWarnings("unchecked")
 	public EObjectWrapper<T> remove(String name, Object... values) {
-		EStructuralFeature feature = result().eClass().getEStructuralFeature(name);
+		return remove(feature(name), values);
+	}
+
+	/**
+	 * Removes elements from an already resolved collection. The elemnent can
+	 * be an {@link EObject} instance or an {@link EObjectWrapper}.
+	 * 
+	 * @param feature the collection feature
+	 * @param value the elements to remove
+	 * @return this instance of EObjectWrapper
+	 */
+	@SuppressWarnings("unchecked")
+	public EObjectWrapper<T> remove(EStructuralFeature feature, Object... values) {
 		List<Object> list = (List<Object>) result().eGet(feature);
 		for (Object o : values) {
 			if (o instanceof EObjectWrapper) {
@@ -112,9 +239,19 @@ public class EObjectWrapper<T extends EObject> extends ValueWrapper<T> {
 	 * @param i the position of the element to remove
 	 * @return this instance of EObjectWrapper
 	 */
-	@SuppressWarnings("unchecked")
 	public EObjectWrapper<T> removeAt(String name, int i) {
-		EStructuralFeature feature = result().eClass().getEStructuralFeature(name);
+		return removeAt(feature(name), i);
+	}
+
+	/**
+	 * Removes the i-th element from an already resolved collection.
+	 * 
+	 * @param feature the collection from which the element must be removed
+	 * @param i the position of the element to remove
+	 * @return this instance of EObjectWrapper
+	 */
+	@SuppressWarnings("unchecked")
+	public EObjectWrapper<T> removeAt(EStructuralFeature feature, int i) {
 		List<Object> list = (List<Object>) result().eGet(feature);
 		list.remove(i);
 		return this;
@@ -128,8 +265,19 @@ public class EObjectWrapper<T extends EObject> extends ValueWrapper<T> {
 	 * @return a new instance of {@link EFeatureWrapper} wrapping the feature.
 	 */
 	public EFeatureWrapper eFeature(String name) {
-		EStructuralFeature feature = result().eClass().getEStructuralFeature(name);
-		return new EFeatureWrapper(feature, this);
+		return new EFeatureWrapper(feature(name), this);
+	}
+
+	/**
+	 * Resolves a feature of the wrapped element by its name. The returned
+	 * feature can be kept and passed to the overloads accepting an
+	 * {@link EStructuralFeature} to avoid any name lookup in hot loops.
+	 * 
+	 * @param name the name of the feature
+	 * @return the resolved feature or null if it does not exist
+	 */
+	public EStructuralFeature feature(String name) {
+		return result().eClass().getEStructuralFeature(name);
 	}
 
 	/**
@@ -139,32 +287,262 @@ public class EObjectWrapper<T extends EObject> extends ValueWrapper<T> {
 	 * @param name the name of the attribute/reference to navigate
 	 * @return a new instance of ValueWrapper wrapping the result
 	 */
-	@SuppressWarnings("unchecked")
 	public ValueWrapper<?> property(String name) {
 		if (obj == null) {
 			throw new RuntimeException("Object has not been loaded (no model given)");
 		}
-		EFeatureWrapper efeature = eFeature(name);
-		EStructuralFeature feature = efeature.result();
-		Object o = obj.eGet(feature);
+		return property(feature(name));
+	}
 
-		if (o == null) {
-			return NullValueWrapper.NULL;
+	/**
+	 * Gets the value of an already resolved attribute/reference wrapped in a
+	 * {@link ValueWrapper}.
+	 * 
+	 * @param feature the attribute/reference to navigate
+	 * @return a new instance of ValueWrapper wrapping the result
+	 */
+	public ValueWrapper<?> property(EStructuralFeature feature) {
+		if (obj == null) {
+			throw new RuntimeException("Object has not been loaded (no model given)");
 		}
+		return ValueWrapper.wrap(obj.eGet(feature), cache);
+	}
 
-		if (o instanceof EObject) {
-			return obj((EObject) o);
-		} else if (o instanceof List<?>) {
-			List<EObjectWrapper<?>> values = new LinkedList<>();
-			for (EObject e : (List<EObject>) o) {
-				values.add(obj(e));
-			}
-			return new ListWrapper((EList<EObject>) o, values);
-		} else if (o instanceof EEnumLiteral) {
-			return new EEnumLiteralWrapper((EEnumLiteral) o);
-		} else {
-			return new ValueWrapper<Object>(o);
+	/**
+	 * Gets the first value reached by a compiled path wrapped in a
+	 * {@link ValueWrapper}.
+	 * 
+	 * @param path the path to evaluate from the wrapped element
+	 * @return a new instance of ValueWrapper wrapping the result
+	 */
+	public ValueWrapper<?> property(EPath path) {
+		if (obj == null) {
+			throw new RuntimeException("Object has not been loaded (no model given)");
+		}
+		return path.evaluate(this);
+	}
+
+	/**
+	 * Gets the value of a numeric attribute as an int without wrapping it in a
+	 * {@link ValueWrapper}.
+	 * 
+	 * @param name the name of the attribute
+	 * @return the value of the attribute, or 0 if it is null
+	 */
+	public int getInt(String name) {
+		return intValue(result().eGet(attribute(result().eClass(), name)));
+	}
+
+	/**
+	 * Gets the value of an already resolved numeric attribute as an int without
+	 * wrapping it in a {@link ValueWrapper}.
+	 * 
+	 * @param feature the attribute
+	 * @return the value of the attribute, or 0 if it is null
+	 */
+	public int getInt(EStructuralFeature feature) {
+		return intValue(result().eGet(feature));
+	}
+
+	/**
+	 * Gets the value of a numeric attribute as a long without wrapping it in a
+	 * {@link ValueWrapper}.
+	 * 
+	 * @param name the name of the attribute
+	 * @return the value of the attribute, or 0 if it is null
+	 */
+	public long getLong(String name) {
+		return longValue(result().eGet(attribute(result().eClass(), name)));
+	}
+
+	/**
+	 * Gets the value of an already resolved numeric attribute as a long without
+	 * wrapping it in a {@link ValueWrapper}.
+	 * 
+	 * @param feature the attribute
+	 * @return the value of the attribute, or 0 if it is null
+	 */
+	public long getLong(EStructuralFeature feature) {
+		return longValue(result().eGet(feature));
+	}
+
+	/**
+	 * Gets the value of a numeric attribute as a double without wrapping it in a
+	 * {@link ValueWrapper}.
+	 * 
+	 * @param name the name of the attribute
+	 * @return the value of the attribute, or 0 if it is null
+	 */
+	public double getDouble(String name) {
+		return doubleValue(result().eGet(attribute(result().eClass(), name)));
+	}
+
+	/**
+	 * Gets the value of an already resolved numeric attribute as a double without
+	 * wrapping it in a {@link ValueWrapper}.
+	 * 
+	 * @param feature the attribute
+	 * @return the value of the attribute, or 0 if it is null
+	 */
+	public double getDouble(EStructuralFeature feature) {
+		return doubleValue(result().eGet(feature));
+	}
+
+	/**
+	 * Gets the value of a boolean attribute without wrapping it in a
+	 * {@link ValueWrapper}.
+	 * 
+	 * @param name the name of the attribute
+	 * @return the value of the attribute, or false if it is null
+	 */
+	public boolean getBoolean(String name) {
+		return booleanValue(result().eGet(attribute(result().eClass(), name)));
+	}
+
+	/**
+	 * Gets the value of an already resolved boolean attribute without
+	 * wrapping it in a {@link ValueWrapper}.
+	 * 
+	 * @param feature the attribute
+	 * @return the value of the attribute, or false if it is null
+	 */
+	public boolean getBoolean(EStructuralFeature feature) {
+		return booleanValue(result().eGet(feature));
+	}
+
+	/**
+	 * Sets an int value to an attribute.
+	 * 
+	 * @param name the name of the attribute
+	 * @param value the value of the attribute
+	 * @return this instance of EObjectWrapper
+	 */
+	public EObjectWrapper<T> setInt(String name, int value) {
+		result().eSet(attribute(result().eClass(), name), value);
+		return this;
+	}
+
+	/**
+	 * Sets an int value to an already resolved attribute.
+	 * 
+	 * @param feature the attribute
+	 * @param value the value of the attribute
+	 * @return this instance of EObjectWrapper
+	 */
+	public EObjectWrapper<T> setInt(EStructuralFeature feature, int value) {
+		result().eSet(feature, value);
+		return this;
+	}
+
+	/**
+	 * Sets a long value to an attribute.
+	 * 
+	 * @param name the name of the attribute
+	 * @param value the value of the attribute
+	 * @return this instance of EObjectWrapper
+	 */
+	public EObjectWrapper<T> setLong(String name, long value) {
+		result().eSet(attribute(result().eClass(), name), value);
+		return this;
+	}
+
+	/**
+	 * Sets a long value to an already resolved attribute.
+	 * 
+	 * @param feature the attribute
+	 * @param value the value of the attribute
+	 * @return this instance of EObjectWrapper
+	 */
+	public EObjectWrapper<T> setLong(EStructuralFeature feature, long value) {
+		result().eSet(feature, value);
+		return this;
+	}
+
+	/**
+	 * Sets a double value to an attribute.
+	 * 
+	 * @param name the name of the attribute
+	 * @param value the value of the attribute
+	 * @return this instance of EObjectWrapper
+	 */
+	public EObjectWrapper<T> setDouble(String name, double value) {
+		result().eSet(attribute(result().eClass(), name), value);
+		return this;
+	}
+
+	/**
+	 * Sets a double value to an already resolved attribute.
+	 * 
+	 * @param feature the attribute
+	 * @param value the value of the attribute
+	 * @return this instance of EObjectWrapper
+	 */
+	public EObjectWrapper<T> setDouble(EStructuralFeature feature, double value) {
+		result().eSet(feature, value);
+		return this;
+	}
+
+	/**
+	 * Sets a boolean value to an attribute.
+	 * 
+	 * @param name the name of the attribute
+	 * @param value the value of the attribute
+	 * @return this instance of EObjectWrapper
+	 */
+	public EObjectWrapper<T> setBoolean(String name, boolean value) {
+		result().eSet(attribute(result().eClass(), name), value);
+		return this;
+	}
+
+	/**
+	 * Sets a boolean value to an already resolved attribute.
+	 * 
+	 * @param feature the attribute
+	 * @param value the value of the attribute
+	 * @return this instance of EObjectWrapper
+	 */
+	public EObjectWrapper<T> setBoolean(EStructuralFeature feature, boolean value) {
+		result().eSet(feature, value);
+		return this;
+	}
+
+	/*
+	 * Resolves an attribute read or written by the primitive accessors.
+	 */
+	static EStructuralFeature attribute(EClass eClass, String name) {
+		EStructuralFeature feature = eClass.getEStructuralFeature(name);
+		if (feature == null) {
+			throw new RuntimeException("Feature '" + name + "' does not exist");
+		}
+		return feature;
+	}
+
+	static int intValue(Object value) {
+		return value == null ? 0 : ((Number) value).intValue();
+	}
+
+	static long longValue(Object value) {
+		return value == null ? 0L : ((Number) value).longValue();
+	}
+
+	static double doubleValue(Object value) {
+		return value == null ? 0.0 : ((Number) value).doubleValue();
+	}
+
+	static boolean booleanValue(Object value) {
+		return value != null && (Boolean) value;
+	}
+
+	/**
+	 * Starts a lazy {@link Query} from the wrapped element.
+	 * 
+	 * @return a new Query
+	 */
+	public Query query() {
+		if (obj == null) {
+			throw new RuntimeException("Object has not been loaded (no model given)");
 		}
+		return Query.of(obj);
 	}
 
 	/**
@@ -198,4 +576,15 @@ public class EObjectWrapper<T extends EObject> extends ValueWrapper<T> {
 	public static EObjectWrapper<EObject> obj(EObject o) {
 		return new EObjectWrapper<EObject>(o);
 	}
+
+	/**
+	 * Gets the wrapper of an {@link EObject} from a cache.
+	 * 
+	 * @param o the {@link EObject} to wrap
+	 * @param cache the cache to look into, or null
+	 * @return the cached or a new instance of EObjectWrapper
+	 */
+	static EObjectWrapper<?> obj(EObject o, WrapperCache cache) {
+		return cache == null ? obj(o) : cache.wrap(o);
+	}
 }
@@ -5,10 +5,16 @@
  *******************************************************************************/
 package org.dynemf;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.eclipse.emf.common.util.EList;
 import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EClassifier;
 import org.eclipse.emf.ecore.EFactory;
 import org.eclipse.emf.ecore.EObject;
 import org.eclipse.emf.ecore.EPackage;
+import org.eclipse.emf.ecore.EStructuralFeature;
 
 /**
  * Wraps an {@link EPackage} and provides the "root" for creating various
@@ -18,11 +24,33 @@ import org.eclipse.emf.ecore.EPackage;
  *
  */
 public class EPackageWrapper extends DynEMFWrapper<EPackage> {
-	protected EFactory factory;
+	/**
+	 * The wrapped metamodel with its factory and the meta-classes already
+	 * resolved. It is replaced as a whole when the metamodel is updated so
+	 * concurrent readers always see a consistent state.
+	 */
+	static final class State {
+		final EPackage pack;
+		final EFactory factory;
+		final ConcurrentMap<String, EClass> eclasses = new ConcurrentHashMap<>();
+		final ConcurrentMap<Class<?>, EClass> jclasses = new ConcurrentHashMap<>();
+
+		State(EPackage pack) {
+			this.pack = pack;
+			this.factory = pack.getEFactoryInstance();
+		}
+	}
+
+	private volatile State state;
 
 	EPackageWrapper(EPackage pack) {
 		super(pack);
-		this.factory = pack.getEFactoryInstance();
+		this.state = new State(pack);
+	}
+
+	@Override
+	public EPackage result() {
+		return state.pack;
 	}
 
 	/**
@@ -32,7 +60,8 @@ public class EPackageWrapper extends DynEMFWrapper<EPackage> {
 	 * @return a new EObjectWrapper with the new created "ename" instance
 	 */
 	public EObjectWrapper<EObject> create(String ename) {
-		return new EObjectWrapper<EObject>(factory.create((EClass) result().getEClassifier(ename)));
+		State s = state;
+		return new EObjectWrapper<EObject>(s.factory.create(eClass(s, ename)));
 	}
 
 	/**
@@ -44,12 +73,143 @@ public class EPackageWrapper extends DynEMFWrapper<EPackage> {
 	 */
 	@SuppressWarnings("unchecked")
 	public <T extends EObject> EObjectWrapper<T> create(Class<T> clazz) {
-		return new EObjectWrapper<T>((T) factory.create((EClass) result().getEClassifier(clazz.getSimpleName())));
+		State s = state;
+		return new EObjectWrapper<T>((T) s.factory.create(eClass(s, clazz)));
+	}
+
+	/**
+	 * Creates n new instances of a meta-class in a pre-sized list. The list
+	 * can be attached to a collection in one operation using
+	 * {@link EObjectWrapper#addAll(String, java.util.Collection)}.
+	 * 
+	 * @param ename the name of the meta-class
+	 * @param n the number of instances to create
+	 * @return a list with the n new created "ename" instances
+	 */
+	public EList<EObject> create(String ename, int n) {
+		return creator(ename).create(n);
+	}
+
+	/**
+	 * Gets an {@link EObjectCreator} instantiating a meta-class without any
+	 * further name lookup.
+	 * 
+	 * @param ename the name of the meta-class
+	 * @return a new EObjectCreator for the "ename" meta-class
+	 */
+	public EObjectCreator<EObject> creator(String ename) {
+		State s = state;
+		EClass eClass = eClass(s, ename);
+		if (eClass == null) {
+			throw new RuntimeException("Meta-class '" + ename + "' does not exist");
+		}
+		return new EObjectCreator<EObject>(s.factory, eClass);
+	}
+
+	/**
+	 * Gets an {@link EObjectCreator} instantiating a meta-class without any
+	 * further name lookup.
+	 * 
+	 * @param clazz the class of the meta-class (<i>e.g.</i>: A.class, where A
+	 *            comes from the metamodel wrapped by this object)
+	 * @return a new EObjectCreator for the "clazz" meta-class
+	 */
+	public <T extends EObject> EObjectCreator<T> creator(Class<T> clazz) {
+		State s = state;
+		EClass eClass = eClass(s, clazz);
+		if (eClass == null) {
+			throw new RuntimeException("Meta-class '" + clazz.getSimpleName() + "' does not exist");
+		}
+		return new EObjectCreator<T>(s.factory, eClass);
+	}
+
+	/**
+	 * Resolves a meta-class of the wrapped {@link EPackage} by its name. The
+	 * resolution is cached until the metamodel is updated.
+	 * 
+	 * @param ename the name of the meta-class
+	 * @return the resolved EClass or null if it does not exist
+	 */
+	public EClass eClass(String ename) {
+		return eClass(state, ename);
+	}
+
+	private static EClass eClass(State s, String ename) {
+		EClass eClass = s.eclasses.get(ename);
+		if (eClass == null) {
+			EClassifier classifier = s.pack.getEClassifier(ename);
+			if (!(classifier instanceof EClass)) {
+				// Data types and enumerations are not meta-classes
+				return null;
+			}
+			eClass = (EClass) classifier;
+			s.eclasses.put(ename, eClass);
+		}
+		return eClass;
+	}
+
+	private static EClass eClass(State s, Class<?> clazz) {
+		EClass eClass = s.jclasses.get(clazz);
+		if (eClass == null) {
+			eClass = eClass(s, clazz.getSimpleName());
+			if (eClass != null) {
+				s.jclasses.put(clazz, eClass);
+			}
+		}
+		return eClass;
+	}
+
+	EFactory factory() {
+		return state.factory;
+	}
+
+	/**
+	 * Creates a {@link ModelGenerator} producing random models conforming to
+	 * the wrapped {@link EPackage}.
+	 * 
+	 * @return a new ModelGenerator
+	 */
+	public ModelGenerator generator() {
+		return new ModelGenerator(this);
+	}
+
+	/**
+	 * Resolves a feature of a meta-class of the wrapped {@link EPackage}. The
+	 * returned feature can be kept and passed to the {@link EObjectWrapper}
+	 * overloads accepting an {@link EStructuralFeature} in order to skip name
+	 * lookups.
+	 * 
+	 * @param ename the name of the meta-class
+	 * @param name the name of the feature
+	 * @return the resolved feature or null if it does not exist
+	 */
+	public EStructuralFeature feature(String ename, String name) {
+		EClass eClass = eClass(ename);
+		if (eClass == null) {
+			throw new RuntimeException("Meta-class '" + ename + "' does not exist");
+		}
+		return eClass.getEStructuralFeature(name);
+	}
+
+	/**
+	 * Compiles a path expression evaluated from the instances of a meta-class
+	 * of the wrapped {@link EPackage} (see {@link EPath}).
+	 * 
+	 * @param ename the name of the meta-class
+	 * @param expression the path expression
+	 * @return the compiled path
+	 */
+	public EPath path(String ename, String expression) {
+		EClass eClass = eClass(ename);
+		if (eClass == null) {
+			throw new RuntimeException("Meta-class '" + ename + "' does not exist");
+		}
+		return EPath.compile(expression, eClass);
 	}
 
 	void update(EPackage pack) {
 		this.obj = pack;
-		this.factory = pack.getEFactoryInstance();
+		this.state = new State(pack);
 	}
 
 	/**
@@ -0,0 +1,478 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2016 Vincent Aranega
+ *
+ * See the file LICENSE for copying permission.
+ *******************************************************************************/
+package org.dynemf;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.eclipse.emf.ecore.EAttribute;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EDataType;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+
+/**
+ * Represents a path expression compiled against a metamodel, evaluated
+ * repeatedly from many elements without resolving any feature by name:
+ *
+ * <pre>
+ * EPath names = EPath.compile("a/a[name='x']/name", eClass);
+ * ValueWrapper&lt;?&gt; first = names.evaluate(root);
+ * names.forEach(root.result(), value -&gt; ...);
+ * </pre>
+ *
+ * A path is a list of feature names separated by '/', each one navigating
+ * from the elements reached so far to the values of their feature (the
+ * values of a many-valued feature are flattened). Each step can be followed
+ * by predicates applied in order:
+ * <ul>
+ * <li><code>[i]</code> keeps the i-th value (starting at 0) among the values
+ * kept by the previous predicates</li>
+ * <li><code>[attribute='literal']</code> (or <code>!=</code>) keeps the values
+ * whose attribute is (or is not) equal to the literal, which can be quoted
+ * with ' or " and is converted to the attribute type (one of the values of a
+ * many-valued attribute has to be equal)</li>
+ * </ul>
+ * Features are resolved against the type of each step, so the features
+ * defined only by sub-classes cannot be navigated.
+ *
+ * @author Vincent Aranega
+ *
+ */
+public final class EPath {
+	private final String expression;
+	private final EClass eClass;
+	private final Step[] steps;
+
+	private EPath(String expression, EClass eClass, Step[] steps) {
+		this.expression = expression;
+		this.eClass = eClass;
+		this.steps = steps;
+	}
+
+	/**
+	 * Parses and resolves a path expression.
+	 *
+	 * @param expression the path expression
+	 * @param eClass the meta-class of the elements the path is evaluated from
+	 * @return the compiled path
+	 * @throws IllegalArgumentException if the expression is malformed
+	 * @throws RuntimeException if a feature does not exist
+	 */
+	public static EPath compile(String expression, EClass eClass) {
+		return new EPath(expression, eClass, new Parser(expression).parse(eClass));
+	}
+
+	/**
+	 * Gets the meta-class of the elements the path is evaluated from.
+	 *
+	 * @return the meta-class
+	 */
+	public EClass eClass() {
+		return eClass;
+	}
+
+	/**
+	 * Gets the type of the values reached by the path.
+	 *
+	 * @return the type of the last feature
+	 */
+	public EStructuralFeature feature() {
+		return steps[steps.length - 1].feature;
+	}
+
+	/**
+	 * Evaluates the path from an element and wraps the first value reached.
+	 *
+	 * @param root the element to start from
+	 * @return the wrapped first value or {@link NullValueWrapper#NULL} if no
+	 *         value is reached
+	 */
+	public ValueWrapper<?> evaluate(EObjectWrapper<?> root) {
+		return ValueWrapper.wrap(first(root.result()), root.cache);
+	}
+
+	/**
+	 * Evaluates the path from an element until the first value is reached.
+	 *
+	 * @param root the element to start from
+	 * @return the first value or null if no value is reached
+	 */
+	public Object first(EObject root) {
+		Object[] result = new Object[1];
+		visit(check(root), 0, value -> {
+			result[0] = value;
+			return false;
+		});
+		return result[0];
+	}
+
+	/**
+	 * Evaluates the path from an element, pushing each value reached to an
+	 * action.
+	 *
+	 * @param root the element to start from
+	 * @param action the action to perform on each value
+	 */
+	public void forEach(EObject root, Consumer<Object> action) {
+		visit(check(root), 0, value -> {
+			action.accept(value);
+			return true;
+		});
+	}
+
+	/**
+	 * Evaluates the path lazily from an element.
+	 *
+	 * @param root the element to start from
+	 * @return an iterator over the values reached
+	 */
+	public Iterator<Object> iterator(EObject root) {
+		return new Cursor(check(root));
+	}
+
+	/**
+	 * Evaluates the path lazily from an element as a sequential stream.
+	 *
+	 * @param root the element to start from
+	 * @return a stream of the values reached
+	 */
+	public Stream<Object> stream(EObject root) {
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator(root), Spliterator.ORDERED),
+				false);
+	}
+
+	@Override
+	public String toString() {
+		return expression;
+	}
+
+	private EObject check(EObject root) {
+		if (!eClass.isInstance(root)) {
+			throw new RuntimeException("Path '" + expression + "' does not apply to " + root.eClass().getName());
+		}
+		return root;
+	}
+
+	/*
+	 * Evaluation
+	 */
+
+	private interface Sink {
+		boolean accept(Object value);
+	}
+
+	/*
+	 * Pushes the values reached from an element at a step, returns false to
+	 * stop the evaluation.
+	 */
+	private boolean visit(EObject obj, int i, Sink sink) {
+		Step step = steps[i];
+		boolean last = i == steps.length - 1;
+		Object values = step.values(obj);
+		if (values == null) {
+			return true;
+		}
+		int[] counts = step.indexes > 0 ? new int[step.predicates.length] : null;
+		if (!(values instanceof List<?>)) {
+			if (step.accept(values, counts)) {
+				return last ? sink.accept(values) : visit((EObject) values, i + 1, sink);
+			}
+			return true;
+		}
+		List<?> list = (List<?>) values;
+		for (int j = 0; j < list.size(); j++) {
+			Object value = list.get(j);
+			if (step.accept(value, counts) && !(last ? sink.accept(value) : visit((EObject) value, i + 1, sink))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/*
+	 * Pulls the values reached, keeping the position of each step.
+	 */
+	private final class Cursor implements Iterator<Object> {
+		private final Iterator<?>[] values = new Iterator<?>[steps.length];
+		private final int[][] counts = new int[steps.length][];
+		private int depth = 0;
+		private Object next;
+		private boolean computed = false;
+
+		Cursor(EObject root) {
+			open(0, root);
+		}
+
+		private void open(int i, EObject obj) {
+			Object found = steps[i].values(obj);
+			if (found == null) {
+				values[i] = Collections.emptyIterator();
+			} else if (found instanceof List<?>) {
+				values[i] = ((List<?>) found).iterator();
+			} else {
+				values[i] = Collections.singleton(found).iterator();
+			}
+			if (steps[i].indexes > 0) {
+				if (counts[i] == null) {
+					counts[i] = new int[steps[i].predicates.length];
+				}
+				Arrays.fill(counts[i], 0);
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			if (computed) {
+				return depth >= 0;
+			}
+			computed = true;
+			while (depth >= 0) {
+				Iterator<?> it = values[depth];
+				if (!it.hasNext()) {
+					depth--;
+					continue;
+				}
+				Object value = it.next();
+				if (!steps[depth].accept(value, counts[depth])) {
+					continue;
+				}
+				if (depth == steps.length - 1) {
+					next = value;
+					return true;
+				}
+				depth++;
+				open(depth, (EObject) value);
+			}
+			return false;
+		}
+
+		@Override
+		public Object next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			computed = false;
+			return next;
+		}
+
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException("remove");
+		}
+	}
+
+	/*
+	 * Compiled form
+	 */
+
+	private static final class Step {
+		final EStructuralFeature feature;
+		final Predicate[] predicates;
+		// Number of index predicates
+		final int indexes;
+		// Index directly applied on a many-valued feature, or -1
+		final int direct;
+
+		Step(EStructuralFeature feature, List<Predicate> predicates) {
+			this.feature = feature;
+			int count = 0;
+			for (Predicate predicate : predicates) {
+				count += predicate.index >= 0 ? 1 : 0;
+			}
+			if (feature.isMany() && !predicates.isEmpty() && predicates.get(0).index >= 0) {
+				this.direct = predicates.remove(0).index;
+				count--;
+			} else {
+				this.direct = -1;
+			}
+			this.predicates = predicates.toArray(new Predicate[predicates.size()]);
+			this.indexes = count;
+		}
+
+		/*
+		 * Gets the value, the list of values or null.
+		 */
+		Object values(EObject obj) {
+			Object values = obj.eGet(feature);
+			if (direct >= 0) {
+				List<?> list = (List<?>) values;
+				return direct < list.size() ? list.get(direct) : null;
+			}
+			return values;
+		}
+
+		boolean accept(Object value, int[] counts) {
+			for (int i = 0; i < predicates.length; i++) {
+				Predicate predicate = predicates[i];
+				if (predicate.index >= 0) {
+					if (counts[i]++ != predicate.index) {
+						return false;
+					}
+				} else if (value == null || predicate.matches((EObject) value) == predicate.negated) {
+					return false;
+				}
+			}
+			return value != null;
+		}
+	}
+
+	private static final class Predicate {
+		final int index;
+		final EStructuralFeature feature;
+		final Object value;
+		final boolean negated;
+
+		Predicate(int index) {
+			this(index, null, null, false);
+		}
+
+		Predicate(int index, EStructuralFeature feature, Object value, boolean negated) {
+			this.index = index;
+			this.feature = feature;
+			this.value = value;
+			this.negated = negated;
+		}
+
+		/*
+		 * Checks if the feature value is the literal, or if one of the values
+		 * of a many-valued feature is.
+		 */
+		boolean matches(EObject obj) {
+			Object found = obj.eGet(feature);
+			return feature.isMany() ? ((List<?>) found).contains(value) : value.equals(found);
+		}
+	}
+
+	/*
+	 * Parsing
+	 */
+
+	private static final class Parser {
+		private final String expression;
+		private int pos = 0;
+
+		Parser(String expression) {
+			this.expression = expression;
+		}
+
+		Step[] parse(EClass eClass) {
+			List<Step> steps = new ArrayList<>();
+			EClass type = eClass;
+			while (true) {
+				if (type == null) {
+					throw error("attribute values cannot be navigated");
+				}
+				EStructuralFeature feature = feature(type, name());
+				List<Predicate> predicates = new ArrayList<>();
+				EClass next = feature instanceof EReference ? ((EReference) feature).getEReferenceType() : null;
+				while (peek() == '[') {
+					pos++;
+					predicates.add(predicate(next));
+					expect(']');
+				}
+				steps.add(new Step(feature, predicates));
+				if (pos == expression.length()) {
+					return steps.toArray(new Step[steps.size()]);
+				}
+				expect('/');
+				type = next;
+			}
+		}
+
+		private Predicate predicate(EClass type) {
+			if (Character.isDigit(peek())) {
+				int start = pos;
+				while (Character.isDigit(peek())) {
+					pos++;
+				}
+				return new Predicate(Integer.parseInt(expression.substring(start, pos)));
+			}
+			if (type == null) {
+				throw error("attribute values have no feature");
+			}
+			EStructuralFeature feature = feature(type, name());
+			if (!(feature instanceof EAttribute)) {
+				throw error("'" + feature.getName() + "' is not an attribute");
+			}
+			boolean negated = peek() == '!';
+			if (negated) {
+				pos++;
+			}
+			expect('=');
+			String literal = literal();
+			Object value = literal;
+			EDataType dataType = ((EAttribute) feature).getEAttributeType();
+			if (dataType.getInstanceClass() != String.class) {
+				value = EcoreUtil.createFromString(dataType, literal);
+			}
+			return new Predicate(-1, feature, value, negated);
+		}
+
+		private String name() {
+			int start = pos;
+			while (pos < expression.length() && (Character.isJavaIdentifierPart(expression.charAt(pos)))) {
+				pos++;
+			}
+			if (start == pos) {
+				throw error("feature name expected");
+			}
+			return expression.substring(start, pos);
+		}
+
+		private String literal() {
+			char quote = peek();
+			if (quote == '\'' || quote == '"') {
+				int end = expression.indexOf(quote, pos + 1);
+				if (end < 0) {
+					throw error("unterminated literal");
+				}
+				String literal = expression.substring(pos + 1, end);
+				pos = end + 1;
+				return literal;
+			}
+			int start = pos;
+			while (pos < expression.length() && expression.charAt(pos) != ']') {
+				pos++;
+			}
+			return expression.substring(start, pos).trim();
+		}
+
+		private EStructuralFeature feature(EClass type, String name) {
+			EStructuralFeature feature = type.getEStructuralFeature(name);
+			if (feature == null) {
+				throw new RuntimeException("Feature '" + name + "' does not exist");
+			}
+			return feature;
+		}
+
+		private char peek() {
+			return pos < expression.length() ? expression.charAt(pos) : 0;
+		}
+
+		private void expect(char c) {
+			if (peek() != c) {
+				throw error("'" + c + "' expected");
+			}
+			pos++;
+		}
+
+		private IllegalArgumentException error(String message) {
+			return new IllegalArgumentException("Invalid path '" + expression + "' at " + pos + ": " + message);
+		}
+	}
+}
@@ -0,0 +1,139 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2016 Vincent Aranega
+ *
+ * See the file LICENSE for copying permission.
+ *******************************************************************************/
+package org.dynemf;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.emf.ecore.EPackage;
+import org.eclipse.emf.ecore.EStructuralFeature;
+
+/**
+ * Thread-safe map given to the XML loader as
+ * {@link org.eclipse.emf.ecore.xmi.XMLResource#OPTION_USE_XML_NAME_TO_FEATURE_MAP}
+ * so the features resolved from XML names are shared between the loads of a
+ * {@link ResourceSetWrapper}. Unresolved names are not recorded. Lookups are
+ * counted for each {@link EPackage}: a hit is attributed to the package of
+ * the feature found, a miss to the package of the feature recorded next.
+ *
+ * The map is used as a key by the parser pool (through the load options), so
+ * it compares by identity instead of by content.
+ *
+ * @author Vincent Aranega
+ *
+ */
+final class FeatureNameMap extends ConcurrentHashMap<Object, EStructuralFeature> {
+	private static final long serialVersionUID = 1L;
+
+	private final AtomicLong lookups = new AtomicLong();
+	private final AtomicLong hits = new AtomicLong();
+	private final ConcurrentMap<EPackage, AtomicLong[]> packages = new ConcurrentHashMap<>();
+
+	@Override
+	public EStructuralFeature get(Object key) {
+		EStructuralFeature feature = super.get(key);
+		lookups.incrementAndGet();
+		if (feature != null) {
+			hits.incrementAndGet();
+			counters(feature)[1].incrementAndGet();
+		}
+		return feature;
+	}
+
+	@Override
+	public EStructuralFeature put(Object key, EStructuralFeature value) {
+		if (key == null || value == null) {
+			return null;
+		}
+		counters(value)[0].incrementAndGet();
+		return super.put(key, value);
+	}
+
+	private AtomicLong[] counters(EStructuralFeature feature) {
+		EPackage pack = feature.getEContainingClass().getEPackage();
+		AtomicLong[] counters = packages.get(pack);
+		if (counters == null) {
+			counters = new AtomicLong[] { new AtomicLong(), new AtomicLong() };
+			AtomicLong[] previous = packages.putIfAbsent(pack, counters);
+			if (previous != null) {
+				counters = previous;
+			}
+		}
+		return counters;
+	}
+
+	/**
+	 * Drops the features (and the counters) of a metamodel and of its
+	 * sub-packages.
+	 *
+	 * @param pack the metamodel to invalidate
+	 */
+	void invalidate(EPackage pack) {
+		Set<EPackage> dropped = new HashSet<>();
+		collect(pack, dropped);
+		for (Iterator<EStructuralFeature> it = values().iterator(); it.hasNext();) {
+			if (dropped.contains(it.next().getEContainingClass().getEPackage())) {
+				it.remove();
+			}
+		}
+		packages.keySet().removeAll(dropped);
+	}
+
+	private static void collect(EPackage pack, Set<EPackage> packs) {
+		packs.add(pack);
+		for (EPackage sub : pack.getESubpackages()) {
+			collect(sub, packs);
+		}
+	}
+
+	long lookups() {
+		return lookups.get();
+	}
+
+	long hits() {
+		return hits.get();
+	}
+
+	/**
+	 * Gets the lookups and the hits (in this order) by metamodel nsURI.
+	 */
+	Map<String, long[]> byPackage() {
+		Map<String, long[]> result = new HashMap<>();
+		for (Map.Entry<EPackage, AtomicLong[]> entry : packages.entrySet()) {
+			long hit = entry.getValue()[1].get();
+			long[] counts = result.get(entry.getKey().getNsURI());
+			if (counts == null) {
+				counts = new long[2];
+				result.put(entry.getKey().getNsURI(), counts);
+			}
+			counts[0] += hit + entry.getValue()[0].get();
+			counts[1] += hit;
+		}
+		return result;
+	}
+
+	void reset() {
+		lookups.set(0);
+		hits.set(0);
+		packages.clear();
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		return this == o;
+	}
+
+	@Override
+	public int hashCode() {
+		return System.identityHashCode(this);
+	}
+}
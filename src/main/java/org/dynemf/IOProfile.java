@@ -0,0 +1,118 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2016 Vincent Aranega
+ *
+ * See the file LICENSE for copying permission.
+ *******************************************************************************/
+package org.dynemf;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.emf.ecore.resource.impl.BinaryResourceImpl;
+import org.eclipse.emf.ecore.xmi.XMLResource;
+
+/**
+ * Named sets of EMF load/save options tuned for a kind of workload. The
+ * profile of a {@link ResourceSetWrapper} is applied to each resource it
+ * creates or opens ({@link #BALANCED} by default), the profile of a
+ * {@link ResourceWrapper} is used when it is saved or loaded without explicit
+ * options.
+ *
+ * @author Vincent Aranega
+ *
+ */
+public enum IOProfile {
+	/**
+	 * EMF default behavior, no option
+	 */
+	NONE,
+	/**
+	 * Options without any effect on the produced files: deferred IDREF
+	 * resolution and attachment, configuration caches, shared parser pool and
+	 * name to feature map
+	 */
+	BALANCED,
+	/**
+	 * {@link #BALANCED} with memory mapped binary files and bigger buffers;
+	 * binary files are saved with the faster to decode binary styles
+	 */
+	FAST_LOAD,
+	/**
+	 * {@link #BALANCED} with unformatted XMI, bigger buffers and binary styles
+	 * for floating points, dates and enumerators
+	 */
+	FAST_SAVE,
+	/**
+	 * No pooled parsers and handlers, memory mapped binary files and XMI
+	 * documents buffered in a temporary file instead of the heap during save
+	 */
+	LOW_MEMORY;
+
+	private static final int BUFFER_CAPACITY = 64 * 1024;
+	private static final int FLUSH_THRESHOLD = 64 * 1024;
+
+	/**
+	 * Creates the load options of this profile (without the pooled
+	 * structures, which are provided by a {@link ResourceSetWrapper}).
+	 *
+	 * @return a new map of load options
+	 */
+	public Map<Object, Object> loadOptions() {
+		Map<Object, Object> options = new HashMap<>();
+		if (this == NONE) {
+			return options;
+		}
+		options.put(XMLResource.OPTION_DEFER_IDREF_RESOLUTION, Boolean.TRUE);
+		if (this == FAST_LOAD) {
+			options.put(MappedBinaryResourceImpl.OPTION_MEMORY_MAPPED, Boolean.TRUE);
+			options.put(BinaryResourceImpl.OPTION_BUFFER_CAPACITY, BUFFER_CAPACITY);
+		}
+		if (this == LOW_MEMORY) {
+			options.put(MappedBinaryResourceImpl.OPTION_MEMORY_MAPPED, Boolean.TRUE);
+		} else {
+			options.put(XMLResource.OPTION_DEFER_ATTACHMENT, Boolean.TRUE);
+			options.put(XMLResource.OPTION_CONFIGURATION_CACHE, Boolean.TRUE);
+		}
+		return options;
+	}
+
+	/**
+	 * Creates the save options of this profile.
+	 *
+	 * @return a new map of save options
+	 */
+	public Map<Object, Object> saveOptions() {
+		Map<Object, Object> options = new HashMap<>();
+		if (this == NONE) {
+			return options;
+		}
+		if (this == LOW_MEMORY) {
+			options.put(XMLResource.OPTION_FLUSH_THRESHOLD, FLUSH_THRESHOLD);
+			options.put(XMLResource.OPTION_USE_FILE_BUFFER, Boolean.TRUE);
+			return options;
+		}
+		if (this == FAST_SAVE) {
+			options.put(XMLResource.OPTION_FORMATTED, Boolean.FALSE);
+		}
+		if (this != BALANCED) {
+			options.put(BinaryResourceImpl.OPTION_BUFFER_CAPACITY, BUFFER_CAPACITY);
+			options.put(BinaryResourceImpl.OPTION_STYLE_BINARY_FLOATING_POINT, Boolean.TRUE);
+			options.put(BinaryResourceImpl.OPTION_STYLE_BINARY_DATE, Boolean.TRUE);
+			options.put(BinaryResourceImpl.OPTION_STYLE_BINARY_ENUMERATOR, Boolean.TRUE);
+		}
+		options.put(XMLResource.OPTION_CONFIGURATION_CACHE, Boolean.TRUE);
+		options.put(XMLResource.OPTION_USE_CACHED_LOOKUP_TABLE, new ArrayList<Object>());
+		return options;
+	}
+
+	/**
+	 * Checks if the profile uses the parser pool and the name to feature map
+	 * shared by the resources of a {@link ResourceSetWrapper}.
+	 *
+	 * @return true if the pooled structures should be used
+	 */
+	public boolean isPooled() {
+		return this == BALANCED || this == FAST_LOAD || this == FAST_SAVE;
+	}
+}
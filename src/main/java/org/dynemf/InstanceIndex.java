@@ -0,0 +1,207 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2016 Vincent Aranega
+ *
+ * See the file LICENSE for copying permission.
+ *******************************************************************************/
+package org.dynemf;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.emf.common.notify.Notifier;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EClassifier;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EPackage;
+import org.eclipse.emf.ecore.util.EContentAdapter;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+
+/**
+ * Indexes the elements of a resource set or of a resource by meta-class. An
+ * element is indexed under its EClass and all its super types as soon as it
+ * is contained (directly or not) by the indexed notifier, and removed from the
+ * index once it is detached or unloaded.
+ *
+ * The index is updated from the notifications of the indexed elements, in the
+ * thread that modifies them, without any synchronization: an indexed resource
+ * set must be modified and queried by a single thread at a time.
+ *
+ * @author Vincent Aranega
+ *
+ */
+final class InstanceIndex extends EContentAdapter {
+	private final Map<EClass, Set<EObject>> instances = new HashMap<>();
+
+	private InstanceIndex() {
+	}
+
+	/**
+	 * Gets the index attached to a resource set or a resource.
+	 *
+	 * @param notifier the indexed resource set or resource
+	 * @return the index or null if the notifier is not indexed
+	 */
+	static InstanceIndex of(Notifier notifier) {
+		return (InstanceIndex) EcoreUtil.getExistingAdapter(notifier, InstanceIndex.class);
+	}
+
+	/**
+	 * Starts indexing the elements of a resource set or of a resource (if it
+	 * is not already the case).
+	 *
+	 * @param notifier the resource set or the resource to index
+	 * @return the index of the notifier elements
+	 */
+	static InstanceIndex attach(Notifier notifier) {
+		InstanceIndex index = of(notifier);
+		if (index == null) {
+			index = new InstanceIndex();
+			notifier.eAdapters().add(index);
+		}
+		return index;
+	}
+
+	@Override
+	public boolean isAdapterForType(Object type) {
+		return type == InstanceIndex.class;
+	}
+
+	@Override
+	protected boolean resolve() {
+		return false;
+	}
+
+	@Override
+	protected void setTarget(EObject target) {
+		super.setTarget(target);
+		EClass eClass = target.eClass();
+		add(eClass, target);
+		for (EClass superType : eClass.getEAllSuperTypes()) {
+			add(superType, target);
+		}
+	}
+
+	@Override
+	protected void unsetTarget(EObject target) {
+		super.unsetTarget(target);
+		EClass eClass = target.eClass();
+		remove(eClass, target);
+		for (EClass superType : eClass.getEAllSuperTypes()) {
+			remove(superType, target);
+		}
+	}
+
+	private void add(EClass eClass, EObject o) {
+		Set<EObject> set = instances.get(eClass);
+		if (set == null) {
+			set = new LinkedHashSet<>();
+			instances.put(eClass, set);
+		}
+		set.add(o);
+	}
+
+	private void remove(EClass eClass, EObject o) {
+		Set<EObject> set = instances.get(eClass);
+		if (set != null && set.remove(o) && set.isEmpty()) {
+			instances.remove(eClass);
+		}
+	}
+
+	/**
+	 * Gets the live set of the indexed instances of a meta-class (including
+	 * the instances of its sub-classes). The index is not modified by the
+	 * lookup.
+	 *
+	 * @param eClass the meta-class
+	 * @return a read-only view on the instances, updated as the elements are
+	 *         added or removed
+	 */
+	Set<EObject> instances(final EClass eClass) {
+		return new AbstractSet<EObject>() {
+			private Set<EObject> set() {
+				Set<EObject> set = instances.get(eClass);
+				return set != null ? Collections.unmodifiableSet(set) : Collections.<EObject> emptySet();
+			}
+
+			@Override
+			public Iterator<EObject> iterator() {
+				return set().iterator();
+			}
+
+			@Override
+			public int size() {
+				return set().size();
+			}
+
+			@Override
+			public boolean contains(Object o) {
+				return set().contains(o);
+			}
+		};
+	}
+
+	/**
+	 * Resolves a meta-class by its name among the meta-classes of the indexed
+	 * elements and the packages of a registry.
+	 *
+	 * @param name the meta-class name
+	 * @param registry the registry to look into
+	 * @return the meta-class
+	 * @throws RuntimeException if no meta-class or several meta-classes have
+	 *             this name
+	 */
+	EClass eClass(String name, EPackage.Registry registry) {
+		Set<EClass> found = new LinkedHashSet<>();
+		for (EClass eClass : instances.keySet()) {
+			if (name.equals(eClass.getName())) {
+				found.add(eClass);
+			}
+		}
+		return single(name, lookup(registry, name, found));
+	}
+
+	/**
+	 * Resolves a meta-class by its name among the packages of a registry (the
+	 * package descriptors are resolved).
+	 *
+	 * @param registry the registry to look into
+	 * @param name the meta-class name
+	 * @return the meta-class
+	 * @throws RuntimeException if no meta-class or several meta-classes have
+	 *             this name
+	 */
+	static EClass eClass(EPackage.Registry registry, String name) {
+		return single(name, lookup(registry, name, new LinkedHashSet<EClass>()));
+	}
+
+	private static Set<EClass> lookup(EPackage.Registry registry, String name, Set<EClass> found) {
+		for (String nsUri : new ArrayList<>(registry.keySet())) {
+			EPackage pack = registry.getEPackage(nsUri);
+			EClassifier eClass = pack == null ? null : pack.getEClassifier(name);
+			if (eClass instanceof EClass) {
+				found.add((EClass) eClass);
+			}
+		}
+		return found;
+	}
+
+	private static EClass single(String name, Set<EClass> found) {
+		if (found.isEmpty()) {
+			throw new RuntimeException("Meta-class '" + name + "' does not exist");
+		}
+		if (found.size() > 1) {
+			StringBuilder uris = new StringBuilder();
+			for (EClass eClass : found) {
+				uris.append(uris.length() == 0 ? "" : ", ").append(eClass.getEPackage().getNsURI());
+			}
+			throw new RuntimeException("Meta-class '" + name + "' is ambiguous (" + uris + ")");
+		}
+		return found.iterator().next();
+	}
+}
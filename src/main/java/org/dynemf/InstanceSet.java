@@ -0,0 +1,94 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2016 Vincent Aranega
+ *
+ * See the file LICENSE for copying permission.
+ *******************************************************************************/
+package org.dynemf;
+
+import java.util.Iterator;
+import java.util.Set;
+
+import org.eclipse.emf.ecore.EObject;
+
+/**
+ * Represents the instances of a meta-class held by a resource set or a
+ * resource (see {@link ResourceSetWrapper#allInstances(String)}). The wrapper
+ * is a live and read-only view over the index: it reflects the elements added
+ * or removed after its creation, and {@link EObjectWrapper} are only created
+ * when an element is accessed. As any collection, it must not be modified
+ * while it is iterated.
+ *
+ * @author Vincent Aranega
+ *
+ */
+public class InstanceSet extends DynEMFWrapper<Set<EObject>> implements Iterable<EObjectWrapper<?>> {
+
+	InstanceSet(Set<EObject> obj) {
+		super(obj);
+	}
+
+	/**
+	 * Checks if there is no instance.
+	 *
+	 * @return true if there is no instance.
+	 */
+	public boolean isEmpty() {
+		return result().isEmpty();
+	}
+
+	/**
+	 * Gets the number of instances.
+	 *
+	 * @return the number of instances
+	 */
+	public int size() {
+		return result().size();
+	}
+
+	/**
+	 * Checks if an {@link EObjectWrapper} is one of the instances.
+	 *
+	 * @param e the element to look for
+	 * @return true if the wrapped element is one of the instances
+	 */
+	public boolean includes(EObjectWrapper<?> e) {
+		return result().contains(e.result());
+	}
+
+	/**
+	 * Gets a cursor over the instances, which is re-pointed at each element
+	 * instead of wrapping it.
+	 *
+	 * @return a new {@link EObjectCursor} placed before the first instance
+	 */
+	public EObjectCursor cursor() {
+		return new EObjectCursor(result().iterator());
+	}
+
+	/**
+	 * Iterates over the instances, wrapping each element on demand.
+	 *
+	 * @return an iterator over the instances
+	 */
+	@Override
+	public Iterator<EObjectWrapper<?>> iterator() {
+		final Iterator<EObject> it = result().iterator();
+		return new Iterator<EObjectWrapper<?>>() {
+			@Override
+			public boolean hasNext() {
+				return it.hasNext();
+			}
+
+			@Override
+			public EObjectWrapper<?> next() {
+				return EObjectWrapper.obj(it.next());
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException("remove");
+			}
+		};
+	}
+
+}
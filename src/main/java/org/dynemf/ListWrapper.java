@@ -5,23 +5,34 @@
  *******************************************************************************/
 package org.dynemf;
 
-import java.util.List;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
 
 import org.eclipse.emf.common.util.EList;
+import org.eclipse.emf.ecore.EClass;
 import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.EStructuralFeature;
 
 /**
- * Represents a {@link EList} of {@link EObject}.
+ * Represents a {@link EList} of {@link EObject}. The wrapper is a lazy view
+ * over the wrapped list: {@link EObjectWrapper} are only created when an
+ * element is accessed.
  * 
  * @author Vincent Aranega
  *
  */
-public class ListWrapper extends ValueWrapper<EList<EObject>> {
-	protected List<EObjectWrapper<?>> inner;
+public class ListWrapper extends ValueWrapper<EList<EObject>> implements Iterable<EObjectWrapper<?>> {
 
-	ListWrapper(EList<EObject> obj, List<EObjectWrapper<?>> inner) {
+	private final WrapperCache cache;
+
+	ListWrapper(EList<EObject> obj) {
+		this(obj, null);
+	}
+
+	ListWrapper(EList<EObject> obj, WrapperCache cache) {
 		super(obj);
-		this.inner = inner;
+		this.cache = cache;
 	}
 
 	/**
@@ -30,7 +41,16 @@ public class ListWrapper extends ValueWrapper<EList<EObject>> {
 	 * @return true if the list is empty.
 	 */
 	public boolean isEmpty() {
-		return this.inner.isEmpty();
+		return result().isEmpty();
+	}
+
+	/**
+	 * Gets the number of elements contained in the list.
+	 * 
+	 * @return the size of the list
+	 */
+	public int size() {
+		return result().size();
 	}
 
 	/**
@@ -40,17 +60,203 @@ public class ListWrapper extends ValueWrapper<EList<EObject>> {
 	 * @return the i-th {@link EObjectWrapper} element
 	 */
 	public EObjectWrapper<?> at(int i) {
-		return this.inner.get(i);
+		return EObjectWrapper.obj(result().get(i), cache);
 	}
 
 	/**
 	 * Checks if an {@link EObjectWrapper} is contained in the list.
 	 * 
-	 * @param e
-	 * @return
+	 * @param e the element to look for
+	 * @return true if the wrapped element is contained in the list
 	 */
 	public boolean includes(EObjectWrapper<?> e) {
-		return this.inner.contains(e);
+		EList<EObject> list = result();
+		// The container of an element tells if a containment list holds it
+		if (list instanceof EStructuralFeature.Setting) {
+			EStructuralFeature feature = ((EStructuralFeature.Setting) list).getEStructuralFeature();
+			if (feature instanceof EReference && ((EReference) feature).isContainment()) {
+				EObject o = e.result();
+				return o.eContainer() == ((EStructuralFeature.Setting) list).getEObject()
+						&& o.eContainmentFeature() == feature;
+			}
+		}
+		return list.contains(e.result());
+	}
+
+	/**
+	 * Reads an attribute of every element of the list as int values.
+	 * 
+	 * @param name the name of the attribute
+	 * @return a new array holding the i-th element value at the i-th position
+	 *         (null values are read as 0)
+	 */
+	public int[] ints(String name) {
+		return ints(name, new int[size()]);
+	}
+
+	/**
+	 * Reads an attribute of every element of the list as int values into an
+	 * existing array, which can be reused from a list to another.
+	 * 
+	 * @param name the name of the attribute
+	 * @param column the array to fill, at least as large as the list
+	 * @return the filled array
+	 */
+	public int[] ints(String name, int[] column) {
+		EList<EObject> list = result();
+		EClass eClass = null;
+		EStructuralFeature feature = null;
+		for (int i = 0; i < list.size(); i++) {
+			EObject o = list.get(i);
+			if (o.eClass() != eClass) {
+				eClass = o.eClass();
+				feature = EObjectWrapper.attribute(eClass, name);
+			}
+			column[i] = EObjectWrapper.intValue(o.eGet(feature));
+		}
+		return column;
+	}
+
+	/**
+	 * Reads an attribute of every element of the list as long values.
+	 * 
+	 * @param name the name of the attribute
+	 * @return a new array holding the i-th element value at the i-th position
+	 *         (null values are read as 0)
+	 */
+	public long[] longs(String name) {
+		return longs(name, new long[size()]);
+	}
+
+	/**
+	 * Reads an attribute of every element of the list as long values into an
+	 * existing array, which can be reused from a list to another.
+	 * 
+	 * @param name the name of the attribute
+	 * @param column the array to fill, at least as large as the list
+	 * @return the filled array
+	 */
+	public long[] longs(String name, long[] column) {
+		EList<EObject> list = result();
+		EClass eClass = null;
+		EStructuralFeature feature = null;
+		for (int i = 0; i < list.size(); i++) {
+			EObject o = list.get(i);
+			if (o.eClass() != eClass) {
+				eClass = o.eClass();
+				feature = EObjectWrapper.attribute(eClass, name);
+			}
+			column[i] = EObjectWrapper.longValue(o.eGet(feature));
+		}
+		return column;
+	}
+
+	/**
+	 * Reads an attribute of every element of the list as double values.
+	 * 
+	 * @param name the name of the attribute
+	 * @return a new array holding the i-th element value at the i-th position
+	 *         (null values are read as 0)
+	 */
+	public double[] doubles(String name) {
+		return doubles(name, new double[size()]);
+	}
+
+	/**
+	 * Reads an attribute of every element of the list as double values into an
+	 * existing array, which can be reused from a list to another.
+	 * 
+	 * @param name the name of the attribute
+	 * @param column the array to fill, at least as large as the list
+	 * @return the filled array
+	 */
+	public double[] doubles(String name, double[] column) {
+		EList<EObject> list = result();
+		EClass eClass = null;
+		EStructuralFeature feature = null;
+		for (int i = 0; i < list.size(); i++) {
+			EObject o = list.get(i);
+			if (o.eClass() != eClass) {
+				eClass = o.eClass();
+				feature = EObjectWrapper.attribute(eClass, name);
+			}
+			column[i] = EObjectWrapper.doubleValue(o.eGet(feature));
+		}
+		return column;
+	}
+
+	/**
+	 * Reads an attribute of every element of the list as boolean values.
+	 * 
+	 * @param name the name of the attribute
+	 * @return a new array holding the i-th element value at the i-th position
+	 *         (null values are read as false)
+	 */
+	public boolean[] booleans(String name) {
+		return booleans(name, new boolean[size()]);
+	}
+
+	/**
+	 * Reads an attribute of every element of the list as boolean values into an
+	 * existing array, which can be reused from a list to another.
+	 * 
+	 * @param name the name of the attribute
+	 * @param column the array to fill, at least as large as the list
+	 * @return the filled array
+	 */
+	public boolean[] booleans(String name, boolean[] column) {
+		EList<EObject> list = result();
+		EClass eClass = null;
+		EStructuralFeature feature = null;
+		for (int i = 0; i < list.size(); i++) {
+			EObject o = list.get(i);
+			if (o.eClass() != eClass) {
+				eClass = o.eClass();
+				feature = EObjectWrapper.attribute(eClass, name);
+			}
+			column[i] = EObjectWrapper.booleanValue(o.eGet(feature));
+		}
+		return column;
+	}
+
+	/**
+	 * Gets a cursor over the elements of the list, which is re-pointed at
+	 * each element instead of wrapping it.
+	 * 
+	 * @return a new {@link EObjectCursor} placed before the first element
+	 */
+	public EObjectCursor cursor() {
+		return new EObjectCursor(result());
+	}
+
+	/**
+	 * Iterates over the list, wrapping each element on demand.
+	 * 
+	 * @return an iterator over the elements of the list
+	 */
+	@Override
+	public Iterator<EObjectWrapper<?>> iterator() {
+		return new Iterator<EObjectWrapper<?>>() {
+			private int i = 0;
+
+			@Override
+			public boolean hasNext() {
+				return i < result().size();
+			}
+
+			@Override
+			public EObjectWrapper<?> next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				return EObjectWrapper.obj(result().get(i++), cache);
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException("remove");
+			}
+		};
 	}
 
 }
@@ -0,0 +1,140 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2016 Vincent Aranega
+ *
+ * See the file LICENSE for copying permission.
+ *******************************************************************************/
+package org.dynemf;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Snapshot of the reuse of the structures shared by the XMI loads of a
+ * {@link ResourceSetWrapper}: the XML parsers and handlers of its parser pool
+ * and the features of its name to feature map (globally and by metamodel).
+ *
+ * @author Vincent Aranega
+ *
+ */
+public final class LoadStats {
+	private final long[] pool;
+	private final long featureLookups;
+	private final long featureHits;
+	private final Map<String, long[]> packages;
+
+	LoadStats(long[] pool, long featureLookups, long featureHits, Map<String, long[]> packages) {
+		this.pool = pool;
+		this.featureLookups = featureLookups;
+		this.featureHits = featureHits;
+		this.packages = packages;
+	}
+
+	/**
+	 * @return the number of XML parsers requested to the pool
+	 */
+	public long parserRequests() {
+		return pool[0];
+	}
+
+	/**
+	 * @return the number of XML parsers reused from the pool
+	 */
+	public long parserHits() {
+		return pool[1];
+	}
+
+	/**
+	 * @return the ratio of reused XML parsers (0 if none was requested)
+	 */
+	public double parserHitRate() {
+		return rate(pool[1], pool[0]);
+	}
+
+	/**
+	 * @return the number of XML handlers requested to the pool
+	 */
+	public long handlerRequests() {
+		return pool[2];
+	}
+
+	/**
+	 * @return the number of XML handlers reused from the pool
+	 */
+	public long handlerHits() {
+		return pool[3];
+	}
+
+	/**
+	 * @return the ratio of reused XML handlers (0 if none was requested)
+	 */
+	public double handlerHitRate() {
+		return rate(pool[3], pool[2]);
+	}
+
+	/**
+	 * @return the number of XML names looked up in the name to feature map
+	 */
+	public long featureLookups() {
+		return featureLookups;
+	}
+
+	/**
+	 * @return the number of XML names found in the name to feature map
+	 */
+	public long featureHits() {
+		return featureHits;
+	}
+
+	/**
+	 * @return the ratio of XML names found in the name to feature map (0 if
+	 *         none was looked up)
+	 */
+	public double featureHitRate() {
+		return rate(featureHits, featureLookups);
+	}
+
+	/**
+	 * @return the nsURI of the metamodels whose features have been looked up
+	 */
+	public Set<String> packages() {
+		return Collections.unmodifiableSet(packages.keySet());
+	}
+
+	/**
+	 * @param nsUri the nsURI of a metamodel
+	 * @return the number of lookups of features of the metamodel
+	 */
+	public long featureLookups(String nsUri) {
+		long[] counts = packages.get(nsUri);
+		return counts == null ? 0 : counts[0];
+	}
+
+	/**
+	 * @param nsUri the nsURI of a metamodel
+	 * @return the number of features of the metamodel found in the map
+	 */
+	public long featureHits(String nsUri) {
+		long[] counts = packages.get(nsUri);
+		return counts == null ? 0 : counts[1];
+	}
+
+	/**
+	 * @param nsUri the nsURI of a metamodel
+	 * @return the ratio of features of the metamodel found in the map (0 if
+	 *         none was looked up)
+	 */
+	public double featureHitRate(String nsUri) {
+		return rate(featureHits(nsUri), featureLookups(nsUri));
+	}
+
+	private static double rate(long hits, long requests) {
+		return requests == 0 ? 0 : (double) hits / requests;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("parsers %d/%d, handlers %d/%d, features %d/%d", parserHits(), parserRequests(),
+				handlerHits(), handlerRequests(), featureHits, featureLookups);
+	}
+}
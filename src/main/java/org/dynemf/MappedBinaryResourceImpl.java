@@ -0,0 +1,269 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2016 Vincent Aranega
+ *
+ * See the file LICENSE for copying permission.
+ *******************************************************************************/
+package org.dynemf;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.resource.impl.BinaryResourceImpl;
+
+/**
+ * A {@link BinaryResourceImpl} able to load local files through a memory
+ * mapping: the file is read directly from the page cache instead of being
+ * copied through a {@link java.io.FileInputStream} and a
+ * {@link java.io.BufferedInputStream}. The mapping is used when the
+ * {@link #OPTION_MEMORY_MAPPED} load option is {@link Boolean#TRUE},
+ * otherwise the resource behaves exactly as a BinaryResourceImpl.
+ *
+ * The mapping is released as soon as the loading is done, so the file can
+ * be saved again (a mapped file cannot be overwritten or deleted on
+ * Windows). On a JVM where a mapping cannot be released explicitly, it is
+ * only released by the garbage collector.
+ *
+ * The journal of changes appended next to the file by
+ * {@link ResourceWrapper#saveDirty()} (see {@link ResourceWrapper#journal()})
+ * is replayed after the file is loaded, and discarded when the resource is
+ * saved as a whole.
+ *
+ * @author Vincent Aranega
+ *
+ */
+public class MappedBinaryResourceImpl extends BinaryResourceImpl {
+	/**
+	 * Load option enabling the memory mapping of local files (Boolean)
+	 */
+	public static final String OPTION_MEMORY_MAPPED = "MEMORY_MAPPED";
+
+	private static final int SEGMENT_SIZE = Integer.MAX_VALUE;
+
+	// sun.misc.Unsafe and its invokeCleaner(ByteBuffer) method (Java 9+), or null
+	private static final Object UNSAFE;
+	private static final Method INVOKE_CLEANER;
+
+	static {
+		Object unsafe = null;
+		Method invokeCleaner = null;
+		try {
+			Class<?> type = Class.forName("sun.misc.Unsafe");
+			invokeCleaner = type.getMethod("invokeCleaner", ByteBuffer.class);
+			Field field = type.getDeclaredField("theUnsafe");
+			field.setAccessible(true);
+			unsafe = field.get(null);
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			invokeCleaner = null;
+		}
+		UNSAFE = unsafe;
+		INVOKE_CLEANER = invokeCleaner;
+	}
+
+	public MappedBinaryResourceImpl() {
+		super();
+	}
+
+	public MappedBinaryResourceImpl(URI uri) {
+		super(uri);
+	}
+
+	@Override
+	public void load(Map<?, ?> options) throws IOException {
+		if (isLoaded()) {
+			return;
+		}
+		URI uri = getURI();
+		if (isMemoryMapped(options) && uri != null && uri.isFile() && !CompressedURIConverter.isCompressed(uri)) {
+			InputStream stream = map(new File(uri.toFileString()));
+			try {
+				load(stream, options);
+			} finally {
+				stream.close();
+			}
+		} else {
+			super.load(options);
+		}
+		if (isLoaded()) {
+			replayJournal();
+		}
+	}
+
+	/*
+	 * The journal is replayed as a part of the loading: its changes are
+	 * neither recorded nor marking the resource as modified.
+	 */
+	private void replayJournal() throws IOException {
+		isLoading = true;
+		try {
+			ResourceJournal.replay(this);
+		} finally {
+			isLoading = false;
+		}
+		setModified(false);
+	}
+
+	/**
+	 * Saves the resource as a whole and discards its journal of changes, if
+	 * any.
+	 */
+	@Override
+	public void save(Map<?, ?> options) throws IOException {
+		super.save(options);
+		ResourceJournal.delete(getURI());
+		ResourceJournal journal = ResourceJournal.of(this);
+		if (journal != null) {
+			journal.reset();
+		}
+	}
+
+	@Override
+	protected void doLoad(InputStream inputStream, Map<?, ?> options) throws IOException {
+		if (!(inputStream instanceof MappedInputStream)) {
+			super.doLoad(inputStream, options);
+			return;
+		}
+		// A mapped stream is already in memory, it is not wrapped in a buffer
+		EObjectInputStream stream = createEObjectInputStream(inputStream, options);
+		stream.loadResource(this);
+		stream.flush();
+	}
+
+	/**
+	 * Checks if load options ask for memory mapping.
+	 *
+	 * @param options the load options (can be null)
+	 * @return true if {@link #OPTION_MEMORY_MAPPED} is set to true
+	 */
+	public static boolean isMemoryMapped(Map<?, ?> options) {
+		return options != null && Boolean.TRUE.equals(options.get(OPTION_MEMORY_MAPPED));
+	}
+
+	/**
+	 * Maps a file in memory and gives an {@link InputStream} reading it. Any
+	 * resource can load this stream, a MappedBinaryResourceImpl reads it
+	 * without an intermediate buffer. Closing the stream releases the
+	 * mapping.
+	 *
+	 * @param file the file to map
+	 * @return a stream over the mapped file
+	 * @throws IOException if the file cannot be opened or mapped.
+	 */
+	public static InputStream map(File file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			long size = channel.size();
+			ByteBuffer[] segments = new ByteBuffer[(int) Math.max(1, (size + SEGMENT_SIZE - 1) / SEGMENT_SIZE)];
+			for (int i = 0; i < segments.length; i++) {
+				long position = (long) i * SEGMENT_SIZE;
+				segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(SEGMENT_SIZE, size - position));
+			}
+			return new MappedInputStream(segments);
+		}
+	}
+
+	/*
+	 * Releases a mapping without waiting for the garbage collector (Java 8
+	 * buffers are released through their cleaner).
+	 */
+	static void unmap(ByteBuffer buffer) {
+		if (!buffer.isDirect()) {
+			return;
+		}
+		try {
+			if (INVOKE_CLEANER != null) {
+				INVOKE_CLEANER.invoke(UNSAFE, buffer);
+				return;
+			}
+			Method cleaner = buffer.getClass().getMethod("cleaner");
+			cleaner.setAccessible(true);
+			Object clean = cleaner.invoke(buffer);
+			if (clean != null) {
+				clean.getClass().getMethod("clean").invoke(clean);
+			}
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			// The mapping is left to the garbage collector
+		}
+	}
+
+	/**
+	 * Reads a sequence of mapped segments, unmapped once the stream is closed
+	 */
+	static final class MappedInputStream extends InputStream {
+		private ByteBuffer[] segments;
+		private ByteBuffer buffer;
+		private int current = 0;
+
+		MappedInputStream(ByteBuffer[] segments) {
+			this.segments = segments;
+			this.buffer = segments[0];
+		}
+
+		private boolean next() {
+			while (!buffer.hasRemaining()) {
+				if (current + 1 >= segments.length) {
+					return false;
+				}
+				buffer = segments[++current];
+			}
+			return true;
+		}
+
+		@Override
+		public int read() throws IOException {
+			if (!buffer.hasRemaining() && !next()) {
+				return -1;
+			}
+			return buffer.get() & 0xFF;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if (len == 0) {
+				return 0;
+			}
+			if (!buffer.hasRemaining() && !next()) {
+				return -1;
+			}
+			int n = Math.min(len, buffer.remaining());
+			buffer.get(b, off, n);
+			return n;
+		}
+
+		@Override
+		public long skip(long n) throws IOException {
+			long skipped = 0;
+			while (skipped < n && (buffer.hasRemaining() || next())) {
+				int step = (int) Math.min(n - skipped, buffer.remaining());
+				buffer.position(buffer.position() + step);
+				skipped += step;
+			}
+			return skipped;
+		}
+
+		@Override
+		public int available() throws IOException {
+			long remaining = 0;
+			for (int i = current; i < segments.length; i++) {
+				remaining += segments[i].remaining();
+			}
+			return (int) Math.min(Integer.MAX_VALUE, remaining);
+		}
+
+		@Override
+		public void close() throws IOException {
+			for (ByteBuffer segment : segments) {
+				unmap(segment);
+			}
+			buffer = ByteBuffer.allocate(0);
+			segments = new ByteBuffer[] { buffer };
+			current = 0;
+		}
+	}
+}
@@ -0,0 +1,570 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2016 Vincent Aranega
+ *
+ * See the file LICENSE for copying permission.
+ *******************************************************************************/
+package org.dynemf;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.eclipse.emf.common.util.BasicEList;
+import org.eclipse.emf.common.util.EList;
+import org.eclipse.emf.ecore.EAttribute;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EClassifier;
+import org.eclipse.emf.ecore.EDataType;
+import org.eclipse.emf.ecore.EEnum;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EPackage;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.EStructuralFeature;
+
+/**
+ * Generates deterministic random models conforming to an {@link EPackage}.
+ * Models are built breadth first from a root meta-class until the target
+ * number of elements is reached: each element receives random attribute
+ * values, each containment gets up to <code>fanOut</code> children (until
+ * <code>depth</code> is reached) and, once the containment trees are built,
+ * non-containment references are set with a probability given by the
+ * reference density. The same seed and configuration always produce the same
+ * model.
+ *
+ * <pre>
+ * mm.generator().seed(42).size(100000).fanOut(10).depth(6).references(0.2)
+ * 		.generate(rset.create("target/big.bin")).save();
+ * </pre>
+ *
+ * @author Vincent Aranega
+ *
+ */
+public class ModelGenerator {
+	/**
+	 * Produces random values for an attribute.
+	 */
+	public interface Values {
+		/**
+		 * Produces a new value.
+		 *
+		 * @param random the random generator to use
+		 * @return the produced value
+		 */
+		Object next(Random random);
+	}
+
+	private static final String ALPHABET = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
+
+	protected final EPackageWrapper mm;
+	protected long seed = 0;
+	protected int size = 1000;
+	protected int fanOut = 10;
+	protected int depth = 10;
+	protected double references = 0;
+	protected String root;
+	protected final Map<String, Values> byName = new HashMap<>();
+	protected final Map<Class<?>, Values> byType = new HashMap<>();
+	private final Map<EEnum, Values> enums = new HashMap<>();
+	private int nextId;
+
+	ModelGenerator(EPackageWrapper mm) {
+		this.mm = mm;
+		byType.put(String.class, strings(4, 12));
+		byType.put(int.class, uniform(0, 1000));
+		byType.put(Integer.class, uniform(0, 1000));
+		byType.put(long.class, uniformLong(0, 1000000));
+		byType.put(Long.class, uniformLong(0, 1000000));
+		byType.put(double.class, uniformDouble(0, 1));
+		byType.put(Double.class, uniformDouble(0, 1));
+		byType.put(float.class, uniformFloat(0, 1));
+		byType.put(Float.class, uniformFloat(0, 1));
+		byType.put(boolean.class, booleans());
+		byType.put(Boolean.class, booleans());
+		byType.put(Date.class, dates());
+	}
+
+	/**
+	 * Sets the seed of the random generator.
+	 *
+	 * @param seed the seed
+	 * @return this instance of ModelGenerator
+	 */
+	public ModelGenerator seed(long seed) {
+		this.seed = seed;
+		return this;
+	}
+
+	/**
+	 * Sets the number of elements to generate.
+	 *
+	 * @param size the target element count (positive or zero)
+	 * @return this instance of ModelGenerator
+	 * @throws IllegalArgumentException if size is negative
+	 */
+	public ModelGenerator size(int size) {
+		if (size < 0) {
+			throw new IllegalArgumentException("Negative size: " + size);
+		}
+		this.size = size;
+		return this;
+	}
+
+	/**
+	 * Sets the maximum number of elements generated for a many-valued feature.
+	 * With 0, the many-valued features are left empty.
+	 *
+	 * @param fanOut the maximum number of children/values (positive or zero)
+	 * @return this instance of ModelGenerator
+	 * @throws IllegalArgumentException if fanOut is negative
+	 */
+	public ModelGenerator fanOut(int fanOut) {
+		if (fanOut < 0) {
+			throw new IllegalArgumentException("Negative fanOut: " + fanOut);
+		}
+		this.fanOut = fanOut;
+		return this;
+	}
+
+	/**
+	 * Sets the maximum depth of the containment trees. A new root is created
+	 * when a tree cannot grow anymore.
+	 *
+	 * @param depth the maximum containment depth (positive or zero)
+	 * @return this instance of ModelGenerator
+	 * @throws IllegalArgumentException if depth is negative
+	 */
+	public ModelGenerator depth(int depth) {
+		if (depth < 0) {
+			throw new IllegalArgumentException("Negative depth: " + depth);
+		}
+		this.depth = depth;
+		return this;
+	}
+
+	/**
+	 * Sets the cross-reference density, <i>i.e.</i> the probability for each
+	 * non-containment reference of each element to be set.
+	 *
+	 * @param density a probability between 0 and 1
+	 * @return this instance of ModelGenerator
+	 */
+	public ModelGenerator references(double density) {
+		this.references = density;
+		return this;
+	}
+
+	/**
+	 * Sets the meta-class of the roots. By default, the first concrete
+	 * meta-class owning a containment reference is used.
+	 *
+	 * @param ename the name of the root meta-class
+	 * @return this instance of ModelGenerator
+	 */
+	public ModelGenerator root(String ename) {
+		this.root = ename;
+		return this;
+	}
+
+	/**
+	 * Sets the values distribution of every attribute with a given name.
+	 *
+	 * @param attribute the name of the attribute
+	 * @param values the values distribution
+	 * @return this instance of ModelGenerator
+	 */
+	public ModelGenerator values(String attribute, Values values) {
+		this.byName.put(attribute, values);
+		return this;
+	}
+
+	/**
+	 * Sets the values distribution of every attribute typed by a data type
+	 * with a given instance class (<i>e.g.</i>: <code>int.class</code>).
+	 *
+	 * @param type the instance class of the data type
+	 * @param values the values distribution
+	 * @return this instance of ModelGenerator
+	 */
+	public ModelGenerator values(Class<?> type, Values values) {
+		this.byType.put(type, values);
+		return this;
+	}
+
+	/**
+	 * Generates a model and adds its roots to a resource. The resource is not
+	 * saved, its extension gives the serialization format (<i>e.g.</i>: .xmi
+	 * or .bin).
+	 *
+	 * @param resource the resource that receives the generated roots
+	 * @return the resource
+	 */
+	public ResourceWrapper generate(ResourceWrapper resource) {
+		Random random = new Random(seed);
+		List<EClass> classes = concreteClasses(mm.result(), new ArrayList<EClass>());
+		Map<EClass, List<EClass>> subtypes = new HashMap<>();
+		EClass rootClass = rootClass(classes);
+		List<EObject> all = new ArrayList<>(references > 0 ? size : 0);
+		nextId = 0;
+
+		int count = 0;
+		Deque<EObject> queue = new ArrayDeque<>();
+		Deque<Integer> depths = new ArrayDeque<>();
+		while (count < size) {
+			EObject r = instantiate(rootClass, random);
+			count++;
+			if (references > 0) {
+				all.add(r);
+			}
+			queue.add(r);
+			depths.add(0);
+			while (!queue.isEmpty() && count < size) {
+				EObject o = queue.poll();
+				int d = depths.poll();
+				if (d >= depth) {
+					continue;
+				}
+				for (EReference ref : o.eClass().getEAllContainments()) {
+					if (!ref.isChangeable() || ref.isDerived() || count >= size) {
+						continue;
+					}
+					List<EClass> candidates = subtypes(ref.getEReferenceType(), classes, subtypes);
+					if (candidates.isEmpty()) {
+						continue;
+					}
+					int n;
+					if (ref.isMany()) {
+						n = fanOut == 0 ? 0 : Math.max(1, fanOut / 2 + random.nextInt(fanOut - fanOut / 2 + 1));
+					} else {
+						n = random.nextInt(2);
+					}
+					n = Math.min(n, size - count);
+					EList<EObject> children = new BasicEList<>(n);
+					for (int i = 0; i < n; i++) {
+						EObject child = instantiate(candidates.get(random.nextInt(candidates.size())), random);
+						children.add(child);
+						queue.add(child);
+						depths.add(d + 1);
+						if (references > 0) {
+							all.add(child);
+						}
+					}
+					count += n;
+					if (n == 0) {
+						continue;
+					}
+					if (ref.isMany()) {
+						@SuppressWarnings("unchecked")
+						List<EObject> list = (List<EObject>) o.eGet(ref);
+						list.addAll(children);
+					} else {
+						o.eSet(ref, children.get(0));
+					}
+				}
+			}
+			queue.clear();
+			depths.clear();
+			resource.result().getContents().add(r);
+		}
+
+		if (references > 0) {
+			for (EObject o : all) {
+				link(o, all, random);
+			}
+		}
+		return resource;
+	}
+
+	private EClass rootClass(List<EClass> classes) {
+		if (root != null) {
+			EClassifier classifier = mm.result().getEClassifier(root);
+			if (!(classifier instanceof EClass)) {
+				throw new RuntimeException("Meta-class '" + root + "' does not exist");
+			}
+			return (EClass) classifier;
+		}
+		if (classes.isEmpty()) {
+			throw new RuntimeException("Metamodel '" + mm.result().getNsURI() + "' has no concrete meta-class");
+		}
+		for (EClass eClass : classes) {
+			if (!eClass.getEAllContainments().isEmpty()) {
+				return eClass;
+			}
+		}
+		return classes.get(0);
+	}
+
+	private static List<EClass> concreteClasses(EPackage pack, List<EClass> classes) {
+		for (EClassifier classifier : pack.getEClassifiers()) {
+			if (classifier instanceof EClass && !((EClass) classifier).isAbstract()
+					&& !((EClass) classifier).isInterface()) {
+				classes.add((EClass) classifier);
+			}
+		}
+		for (EPackage sub : pack.getESubpackages()) {
+			concreteClasses(sub, classes);
+		}
+		return classes;
+	}
+
+	private static List<EClass> subtypes(EClass type, List<EClass> classes, Map<EClass, List<EClass>> cache) {
+		List<EClass> result = cache.get(type);
+		if (result == null) {
+			result = new ArrayList<>();
+			for (EClass eClass : classes) {
+				if (type.isSuperTypeOf(eClass)) {
+					result.add(eClass);
+				}
+			}
+			cache.put(type, result);
+		}
+		return result;
+	}
+
+	@SuppressWarnings("unchecked")
+	private EObject instantiate(EClass eClass, Random random) {
+		EObject o = mm.factory().create(eClass);
+		for (EAttribute attribute : eClass.getEAllAttributes()) {
+			if (!attribute.isChangeable() || attribute.isDerived() || attribute.isTransient()) {
+				continue;
+			}
+			if (attribute.isID() && attribute.getEAttributeType().getInstanceClass() == String.class) {
+				o.eSet(attribute, "id" + nextId++);
+				continue;
+			}
+			Values values = values(attribute);
+			if (values == null) {
+				continue;
+			}
+			if (attribute.isMany()) {
+				int n = random.nextInt(fanOut + 1);
+				List<Object> list = (List<Object>) o.eGet(attribute);
+				for (int i = 0; i < n; i++) {
+					list.add(values.next(random));
+				}
+			} else {
+				o.eSet(attribute, values.next(random));
+			}
+		}
+		return o;
+	}
+
+	private Values values(EAttribute attribute) {
+		Values values = byName.get(attribute.getName());
+		if (values != null) {
+			return values;
+		}
+		EDataType type = attribute.getEAttributeType();
+		if (type instanceof EEnum) {
+			values = enums.get(type);
+			if (values == null) {
+				values = literals((EEnum) type);
+				enums.put((EEnum) type, values);
+			}
+			return values;
+		}
+		return byType.get(type.getInstanceClass());
+	}
+
+	@SuppressWarnings("unchecked")
+	private void link(EObject o, List<EObject> all, Random random) {
+		for (EReference ref : o.eClass().getEAllReferences()) {
+			if (ref.isContainment() || ref.isContainer() || !ref.isChangeable() || ref.isDerived()
+					|| ref.isTransient()) {
+				continue;
+			}
+			if (random.nextDouble() >= references) {
+				continue;
+			}
+			int n = 1;
+			if (ref.isMany()) {
+				n = fanOut == 0 ? 0 : 1 + random.nextInt(fanOut);
+			}
+			for (int i = 0; i < n; i++) {
+				EObject target = target(ref, all, random);
+				if (target == null) {
+					continue;
+				}
+				if (ref.isMany()) {
+					List<EObject> list = (List<EObject>) o.eGet(ref);
+					if (!list.contains(target)) {
+						list.add(target);
+					}
+				} else {
+					o.eSet(ref, target);
+				}
+			}
+		}
+	}
+
+	private static EObject target(EStructuralFeature ref, List<EObject> all, Random random) {
+		EClassifier type = ref.getEType();
+		for (int attempt = 0; attempt < 16; attempt++) {
+			EObject candidate = all.get(random.nextInt(all.size()));
+			if (type.isInstance(candidate)) {
+				return candidate;
+			}
+		}
+		return null;
+	}
+
+	/*
+	 * Values distributions
+	 */
+
+	/**
+	 * Uniformly distributed integers.
+	 *
+	 * @param min the minimum value (inclusive)
+	 * @param max the maximum value (exclusive)
+	 * @return a values distribution
+	 */
+	public static Values uniform(final int min, final int max) {
+		return new Values() {
+			@Override
+			public Object next(Random random) {
+				return min + random.nextInt(max - min);
+			}
+		};
+	}
+
+	/**
+	 * Uniformly distributed longs.
+	 *
+	 * @param min the minimum value (inclusive)
+	 * @param max the maximum value (exclusive)
+	 * @return a values distribution
+	 */
+	public static Values uniformLong(final long min, final long max) {
+		return new Values() {
+			@Override
+			public Object next(Random random) {
+				return min + (long) (random.nextDouble() * (max - min));
+			}
+		};
+	}
+
+	/**
+	 * Uniformly distributed doubles.
+	 *
+	 * @param min the minimum value (inclusive)
+	 * @param max the maximum value (exclusive)
+	 * @return a values distribution
+	 */
+	public static Values uniformDouble(final double min, final double max) {
+		return new Values() {
+			@Override
+			public Object next(Random random) {
+				return min + random.nextDouble() * (max - min);
+			}
+		};
+	}
+
+	/**
+	 * Uniformly distributed floats.
+	 *
+	 * @param min the minimum value (inclusive)
+	 * @param max the maximum value (exclusive)
+	 * @return a values distribution
+	 */
+	public static Values uniformFloat(final float min, final float max) {
+		return new Values() {
+			@Override
+			public Object next(Random random) {
+				return min + random.nextFloat() * (max - min);
+			}
+		};
+	}
+
+	/**
+	 * Normally distributed doubles.
+	 *
+	 * @param mean the mean of the distribution
+	 * @param deviation the standard deviation of the distribution
+	 * @return a values distribution
+	 */
+	public static Values gaussian(final double mean, final double deviation) {
+		return new Values() {
+			@Override
+			public Object next(Random random) {
+				return mean + random.nextGaussian() * deviation;
+			}
+		};
+	}
+
+	/**
+	 * Random booleans.
+	 *
+	 * @return a values distribution
+	 */
+	public static Values booleans() {
+		return new Values() {
+			@Override
+			public Object next(Random random) {
+				return random.nextBoolean();
+			}
+		};
+	}
+
+	/**
+	 * Random dates between the epoch and 2100.
+	 *
+	 * @return a values distribution
+	 */
+	public static Values dates() {
+		return new Values() {
+			@Override
+			public Object next(Random random) {
+				return new Date((long) (random.nextDouble() * 4102444800000L));
+			}
+		};
+	}
+
+	/**
+	 * Random alphanumerical strings.
+	 *
+	 * @param minLength the minimum length of the strings (inclusive)
+	 * @param maxLength the maximum length of the strings (inclusive)
+	 * @return a values distribution
+	 */
+	public static Values strings(final int minLength, final int maxLength) {
+		return new Values() {
+			@Override
+			public Object next(Random random) {
+				int length = minLength + random.nextInt(maxLength - minLength + 1);
+				char[] chars = new char[length];
+				for (int i = 0; i < length; i++) {
+					chars[i] = ALPHABET.charAt(random.nextInt(ALPHABET.length()));
+				}
+				return new String(chars);
+			}
+		};
+	}
+
+	/**
+	 * Values picked uniformly among a fixed set.
+	 *
+	 * @param values the possible values
+	 * @return a values distribution
+	 */
+	public static Values oneOf(final Object... values) {
+		return new Values() {
+			@Override
+			public Object next(Random random) {
+				return values[random.nextInt(values.length)];
+			}
+		};
+	}
+
+	private static Values literals(EEnum eEnum) {
+		Object[] literals = new Object[eEnum.getELiterals().size()];
+		for (int i = 0; i < literals.length; i++) {
+			literals[i] = eEnum.getELiterals().get(i).getInstance();
+		}
+		return literals.length == 0 ? null : oneOf(literals);
+	}
+}
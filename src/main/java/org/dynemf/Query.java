@@ -0,0 +1,509 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2016 Vincent Aranega
+ *
+ * See the file LICENSE for copying permission.
+ *******************************************************************************/
+package org.dynemf;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import org.eclipse.emf.common.notify.Notifier;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+
+/**
+ * Represents a lazy query over model elements, built step by step from an
+ * {@link EObjectWrapper}, a {@link ResourceWrapper} or a
+ * {@link ResourceSetWrapper}:
+ *
+ * <pre>
+ * root.query().all("a").where("name", startsWith("x")).select("name")
+ * </pre>
+ *
+ * Building a query does not evaluate anything: the steps are fused in a single
+ * pipeline pulled element by element when the query is iterated, so no
+ * intermediate collection is built, and {@link #first()}, {@link #any()} or
+ * {@link #limit(int)} stop the evaluation as soon as possible. A query can be
+ * evaluated several times, each evaluation reflects the current state of the
+ * models.
+ *
+ * The instances of a meta-class are taken from the index of the instances
+ * when it exists (see {@link ResourceSetWrapper#index()}), and the equality or
+ * range conditions directly applied on them are answered by a matching
+ * {@link AttributeIndex} if any. The order of the elements found through an
+ * index is the one of the index.
+ *
+ * @author Vincent Aranega
+ *
+ */
+public class Query implements Iterable<ValueWrapper<?>> {
+	private final Source source;
+	// Set if the query designates the instances of a meta-class held by a notifier
+	private final Notifier scope;
+	private final EClass eClass;
+
+	private Query(Source source) {
+		this(source, null, null);
+	}
+
+	private Query(Source source, Notifier scope, EClass eClass) {
+		this.source = source;
+		this.scope = scope;
+		this.eClass = eClass;
+	}
+
+	/*
+	 * Entry points
+	 */
+
+	static Query of(final EObject obj) {
+		return new Query(() -> Collections.<Object> singleton(obj).iterator());
+	}
+
+	static Query contents(final Resource resource) {
+		return new Query(() -> cast(resource.getContents().iterator()));
+	}
+
+	static Query instances(final Notifier scope, final EClass eClass) {
+		return new Query(() -> {
+			InstanceIndex index = InstanceIndex.of(scope);
+			if (index != null) {
+				return cast(index.instances(eClass).iterator());
+			}
+			return new Filter(EcoreUtil.getAllContents(Collections.singleton(scope), false), o -> eClass.isInstance(o));
+		}, scope, eClass);
+	}
+
+	/*
+	 * Steps
+	 */
+
+	/**
+	 * Navigates a feature: each element is replaced by the values of its
+	 * feature (null values are skipped).
+	 *
+	 * @param name the name of the feature to navigate
+	 * @return a new Query
+	 */
+	public Query all(final String name) {
+		return new Query(() -> new Flatten(source.iterator(), new Getter(name)));
+	}
+
+	/**
+	 * Navigates the containment: each element is replaced by its direct
+	 * contents.
+	 *
+	 * @return a new Query
+	 */
+	public Query contents() {
+		return new Query(() -> new Flatten(source.iterator(), o -> ((EObject) o).eContents()));
+	}
+
+	/**
+	 * Navigates the containment: each element is replaced by all its direct
+	 * and indirect contents.
+	 *
+	 * @return a new Query
+	 */
+	public Query descendants() {
+		return new Query(() -> new Flatten(source.iterator(), o -> ((EObject) o).eAllContents()));
+	}
+
+	/**
+	 * Keeps the instances of a meta-class (or of its sub-classes).
+	 *
+	 * @param eClass the meta-class
+	 * @return a new Query
+	 */
+	public Query ofType(final EClass eClass) {
+		return filter(o -> eClass.isInstance(o));
+	}
+
+	/**
+	 * Keeps the instances of a meta-class designated by its name (or of its
+	 * sub-classes).
+	 *
+	 * @param name the meta-class name
+	 * @return a new Query
+	 */
+	public Query ofType(final String name) {
+		return new Query(() -> new Filter(source.iterator(), new Predicate<Object>() {
+			private EClass last;
+			private boolean matches;
+
+			@Override
+			public boolean test(Object o) {
+				if (!(o instanceof EObject)) {
+					return false;
+				}
+				EClass type = ((EObject) o).eClass();
+				if (type != last) {
+					matches = name.equals(type.getName());
+					for (EClass superType : type.getEAllSuperTypes()) {
+						matches |= name.equals(superType.getName());
+					}
+					last = type;
+				}
+				return matches;
+			}
+		}));
+	}
+
+	/**
+	 * Keeps the elements satisfying a predicate.
+	 *
+	 * @param predicate the predicate
+	 * @return a new Query
+	 */
+	public Query where(final Predicate<? super EObject> predicate) {
+		return filter(o -> predicate.test((EObject) o));
+	}
+
+	/**
+	 * Keeps the elements whose value of a feature satisfies a predicate (for a
+	 * many-valued feature, at least one of its values must satisfy it).
+	 *
+	 * @param name the name of the feature
+	 * @param predicate the predicate
+	 * @return a new Query
+	 */
+	public Query where(final String name, final Predicate<Object> predicate) {
+		return new Query(() -> {
+			final Getter getter = new Getter(name);
+			return new Filter(source.iterator(), o -> test(getter.apply(o), predicate));
+		});
+	}
+
+	/**
+	 * Keeps the elements whose value of a feature satisfies a
+	 * {@link Condition} (for a many-valued feature, at least one of its values
+	 * must satisfy it). If the query designates the instances of a meta-class
+	 * and an {@link AttributeIndex} covers the feature, the index answers the
+	 * equality and range conditions.
+	 *
+	 * @param name the name of the feature
+	 * @param condition the condition
+	 * @return a new Query
+	 */
+	public Query where(final String name, final Condition condition) {
+		final Source scan = () -> {
+			final Getter getter = new Getter(name);
+			return new Filter(source.iterator(), new Predicate<Object>() {
+				private EStructuralFeature last;
+				private Object[] operands;
+
+				@Override
+				public boolean test(Object o) {
+					Object value = getter.apply(o);
+					if (getter.feature != last) {
+						operands = condition.operands(getter.feature);
+						last = getter.feature;
+					}
+					return Query.test(value, v -> condition.test(v, operands));
+				}
+			});
+		};
+		if (scope == null) {
+			return new Query(scan);
+		}
+		return new Query(() -> {
+			EStructuralFeature feature = eClass.getEStructuralFeature(name);
+			AttributeIndex index = feature == null ? null : AttributeIndex.find(scope, eClass, feature);
+			Set<EObject> found = index == null ? null : condition.lookup(index);
+			if (found == null) {
+				return scan.iterator();
+			}
+			// The index may hold the instances of a super-class of eClass
+			return new Filter(found.iterator(), o -> eClass.isInstance(o));
+		});
+	}
+
+	/**
+	 * Projects each element on the value of one of its features (the list of
+	 * values for a many-valued feature).
+	 *
+	 * @param name the name of the feature
+	 * @return a new Query
+	 */
+	public Query select(final String name) {
+		return new Query(() -> new Project(source.iterator(), new Getter(name)));
+	}
+
+	/**
+	 * Keeps the first elements only.
+	 *
+	 * @param max the maximum number of elements
+	 * @return a new Query
+	 */
+	public Query limit(final int max) {
+		return new Query(() -> new Pipe() {
+			private final Iterator<Object> in = source.iterator();
+			private int count = 0;
+
+			@Override
+			protected Object compute() {
+				return count++ < max && in.hasNext() ? in.next() : END;
+			}
+		});
+	}
+
+	/**
+	 * Removes the duplicated elements (or values).
+	 *
+	 * @return a new Query
+	 */
+	public Query distinct() {
+		return new Query(() -> {
+			final Set<Object> seen = new HashSet<>();
+			return new Filter(source.iterator(), o -> seen.add(o));
+		});
+	}
+
+	private Query filter(Predicate<Object> predicate) {
+		return new Query(() -> new Filter(source.iterator(), predicate));
+	}
+
+	private static boolean test(Object value, Predicate<Object> predicate) {
+		if (value instanceof List<?>) {
+			for (Object each : (List<?>) value) {
+				if (predicate.test(each)) {
+					return true;
+				}
+			}
+			return false;
+		}
+		return predicate.test(value);
+	}
+
+	/*
+	 * Evaluation
+	 */
+
+	/**
+	 * Evaluates the query, wrapping each result on demand.
+	 *
+	 * @return an iterator over the results
+	 */
+	@Override
+	public Iterator<ValueWrapper<?>> iterator() {
+		final Iterator<Object> it = source.iterator();
+		return new Iterator<ValueWrapper<?>>() {
+			@Override
+			public boolean hasNext() {
+				return it.hasNext();
+			}
+
+			@Override
+			public ValueWrapper<?> next() {
+				return ValueWrapper.wrap(it.next());
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException("remove");
+			}
+		};
+	}
+
+	/**
+	 * Gets the first result.
+	 *
+	 * @return the wrapped first result or {@link NullValueWrapper#NULL} if
+	 *         there is none
+	 */
+	public ValueWrapper<?> first() {
+		Iterator<Object> it = source.iterator();
+		return it.hasNext() ? ValueWrapper.wrap(it.next()) : NullValueWrapper.NULL;
+	}
+
+	/**
+	 * Checks if there is at least one result.
+	 *
+	 * @return true if there is a result
+	 */
+	public boolean any() {
+		return source.iterator().hasNext();
+	}
+
+	/**
+	 * Counts the results.
+	 *
+	 * @return the number of results
+	 */
+	public int count() {
+		int count = 0;
+		for (Iterator<Object> it = source.iterator(); it.hasNext(); it.next()) {
+			count++;
+		}
+		return count;
+	}
+
+	/**
+	 * Gets the results without wrapping them.
+	 *
+	 * @return a new list of the results
+	 */
+	public List<Object> toList() {
+		List<Object> result = new ArrayList<>();
+		for (Iterator<Object> it = source.iterator(); it.hasNext();) {
+			result.add(it.next());
+		}
+		return result;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Iterator<Object> cast(Iterator<?> it) {
+		return (Iterator<Object>) it;
+	}
+
+	/*
+	 * Pipeline
+	 */
+
+	private interface Source {
+		Iterator<Object> iterator();
+	}
+
+	/*
+	 * Resolves a feature by name, once per meta-class met.
+	 */
+	private static final class Getter implements Function<Object, Object> {
+		private final String name;
+		private EClass last;
+		EStructuralFeature feature;
+
+		Getter(String name) {
+			this.name = name;
+		}
+
+		@Override
+		public Object apply(Object o) {
+			EObject obj = (EObject) o;
+			if (obj.eClass() != last) {
+				feature = obj.eClass().getEStructuralFeature(name);
+				if (feature == null) {
+					throw new RuntimeException("Feature '" + name + "' does not exist");
+				}
+				last = obj.eClass();
+			}
+			return obj.eGet(feature);
+		}
+	}
+
+	private abstract static class Pipe implements Iterator<Object> {
+		protected static final Object END = new Object();
+		private Object next;
+		private boolean computed = false;
+
+		protected abstract Object compute();
+
+		@Override
+		public boolean hasNext() {
+			if (!computed) {
+				next = compute();
+				computed = true;
+			}
+			return next != END;
+		}
+
+		@Override
+		public Object next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			computed = false;
+			return next;
+		}
+
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException("remove");
+		}
+	}
+
+	private static final class Filter extends Pipe {
+		private final Iterator<?> in;
+		private final Predicate<Object> predicate;
+
+		Filter(Iterator<?> in, Predicate<Object> predicate) {
+			this.in = in;
+			this.predicate = predicate;
+		}
+
+		@Override
+		protected Object compute() {
+			while (in.hasNext()) {
+				Object o = in.next();
+				if (predicate.test(o)) {
+					return o;
+				}
+			}
+			return END;
+		}
+	}
+
+	private static final class Project extends Pipe {
+		private final Iterator<Object> in;
+		private final Function<Object, Object> function;
+
+		Project(Iterator<Object> in, Function<Object, Object> function) {
+			this.in = in;
+			this.function = function;
+		}
+
+		@Override
+		protected Object compute() {
+			return in.hasNext() ? function.apply(in.next()) : END;
+		}
+	}
+
+	/*
+	 * Replaces each element by the values given by a function: a collection
+	 * or an iterator is flattened, null is skipped.
+	 */
+	private static final class Flatten extends Pipe {
+		private final Iterator<Object> in;
+		private final Function<Object, Object> function;
+		private Iterator<?> current;
+
+		Flatten(Iterator<Object> in, Function<Object, Object> function) {
+			this.in = in;
+			this.function = function;
+		}
+
+		@Override
+		protected Object compute() {
+			while (true) {
+				if (current != null) {
+					if (current.hasNext()) {
+						return current.next();
+					}
+					current = null;
+				}
+				if (!in.hasNext()) {
+					return END;
+				}
+				Object values = function.apply(in.next());
+				if (values instanceof Iterator<?>) {
+					current = (Iterator<?>) values;
+				} else if (values instanceof Collection<?>) {
+					current = ((Collection<?>) values).iterator();
+				} else if (values != null) {
+					return values;
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,59 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2016 Vincent Aranega
+ *
+ * See the file LICENSE for copying permission.
+ *******************************************************************************/
+package org.dynemf;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.emf.common.util.URI;
+
+/**
+ * Result of a bulk opening of resources (see
+ * {@link ResourceSetWrapper#openAll(java.util.Collection)}): the resources
+ * successfully opened and the failures, both in the order of the requested
+ * URIs.
+ * 
+ * @author Vincent Aranega
+ *
+ */
+public class ResourceBatch {
+	protected final List<ResourceWrapper> resources = new ArrayList<>();
+	protected final Map<URI, Exception> failures = new LinkedHashMap<>();
+
+	ResourceBatch() {
+	}
+
+	/**
+	 * Gets the resources successfully opened.
+	 * 
+	 * @return the opened resources in the order of the requested URIs
+	 */
+	public List<ResourceWrapper> resources() {
+		return Collections.unmodifiableList(this.resources);
+	}
+
+	/**
+	 * Gets the resources that could not be opened with the exception raised
+	 * while opening each of them.
+	 * 
+	 * @return the failures by URI in the order of the requested URIs
+	 */
+	public Map<URI, Exception> failures() {
+		return Collections.unmodifiableMap(this.failures);
+	}
+
+	/**
+	 * Checks if a resource could not be opened.
+	 * 
+	 * @return true if at least one resource could not be opened
+	 */
+	public boolean hasFailures() {
+		return !this.failures.isEmpty();
+	}
+}
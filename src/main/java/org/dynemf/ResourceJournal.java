@@ -0,0 +1,263 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2016 Vincent Aranega
+ *
+ * See the file LICENSE for copying permission.
+ *******************************************************************************/
+package org.dynemf;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.util.EContentAdapter;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+
+/**
+ * Records the changes of a binary resource in order to append them to a
+ * journal file instead of rewriting the whole resource. The journal is stored
+ * next to the resource file (".journal" is appended to its name) and is
+ * replayed by {@link MappedBinaryResourceImpl} when the resource is loaded.
+ * It is discarded when the resource is saved as a whole, synchronously or
+ * asynchronously.
+ *
+ * A journal starts with a header identifying the resource file it applies
+ * to (its length and modification date), followed by the batches of deltas
+ * appended by each save, each one prefixed by its length. A journal which
+ * does not match its resource file is ignored, as well as an incomplete last
+ * batch.
+ *
+ * @author Vincent Aranega
+ *
+ */
+final class ResourceJournal extends EContentAdapter {
+	static final String EXTENSION = "journal";
+
+	private static final int MAGIC = 0x444A524E;
+	private static final byte VERSION = 1;
+
+	private final Resource resource;
+	private final DeltaWriter deltas;
+	// Asynchronous save of the whole resource in progress, or null
+	private CompletableFuture<Void> saving;
+	// Set if an asynchronous save failed after its changes were forgotten
+	private volatile boolean lost = false;
+
+	private ResourceJournal(Resource resource) {
+		this.resource = resource;
+		this.deltas = new DeltaWriter(resource);
+	}
+
+	/**
+	 * Gets the journal attached to a resource.
+	 *
+	 * @param resource the resource
+	 * @return the journal recording the resource changes or null
+	 */
+	static ResourceJournal of(Resource resource) {
+		return (ResourceJournal) EcoreUtil.getExistingAdapter(resource, ResourceJournal.class);
+	}
+
+	/**
+	 * Starts recording the changes of a resource (if it is not already the
+	 * case).
+	 *
+	 * @param resource the resource
+	 * @return the journal recording the resource changes
+	 */
+	static ResourceJournal attach(Resource resource) {
+		ResourceJournal journal = of(resource);
+		if (journal == null) {
+			journal = new ResourceJournal(resource);
+			resource.eAdapters().add(journal);
+		}
+		return journal;
+	}
+
+	@Override
+	public boolean isAdapterForType(Object type) {
+		return type == ResourceJournal.class;
+	}
+
+	@Override
+	protected boolean resolve() {
+		return false;
+	}
+
+	@Override
+	public void notifyChanged(Notification notification) {
+		super.notifyChanged(notification);
+		if (!((Resource.Internal) resource).isLoading()) {
+			deltas.record(notification);
+		}
+	}
+
+	/**
+	 * Checks if the recorded changes can be appended to the journal of the
+	 * resource file.
+	 *
+	 * @return true if the resource file exists and all the changes can be
+	 *         replayed
+	 */
+	boolean canAppend() {
+		awaitSave();
+		File base = file(resource.getURI());
+		return !lost && deltas.isValid() && base != null && base.isFile();
+	}
+
+	/**
+	 * Appends the changes recorded since the last append to the journal.
+	 *
+	 * @throws IOException if the journal cannot be written or if the changes
+	 *             cannot be replayed.
+	 */
+	void append() throws IOException {
+		File base = file(resource.getURI());
+		File journal = journal(resource.getURI());
+		if (deltas.isEmpty()) {
+			return;
+		}
+		byte[] batch = deltas.drain();
+		boolean matches = matches(journal, base);
+		try (DataOutputStream out = new DataOutputStream(new FileOutputStream(journal, matches))) {
+			if (!matches) {
+				out.writeInt(MAGIC);
+				out.writeByte(VERSION);
+				out.writeLong(base.length());
+				out.writeLong(base.lastModified());
+			}
+			out.writeInt(batch.length);
+			out.write(batch);
+		}
+	}
+
+	/**
+	 * Forgets the recorded changes once the resource has been saved as a
+	 * whole.
+	 */
+	void reset() {
+		deltas.reset();
+		lost = false;
+	}
+
+	/**
+	 * Forgets the recorded changes once a snapshot of the resource is taken
+	 * to be saved asynchronously as a whole, and deletes the journal once the
+	 * snapshot is written (the journal no longer matches the resource file).
+	 * If the save fails, the next changes cannot be appended anymore: the
+	 * resource has to be saved as a whole.
+	 *
+	 * @param save the future completed once the snapshot is written
+	 * @return a future completed once the journal is deleted
+	 */
+	CompletableFuture<Void> saving(CompletableFuture<Void> save) {
+		deltas.reset();
+		URI uri = resource.getURI();
+		CompletableFuture<Void> done = save.whenComplete((v, e) -> {
+			if (e == null) {
+				delete(uri);
+			} else {
+				lost = true;
+			}
+		});
+		saving = done;
+		return done;
+	}
+
+	/*
+	 * Appends only once the resource file written by an asynchronous save is
+	 * in place, so the journal matches it.
+	 */
+	private void awaitSave() {
+		if (saving == null) {
+			return;
+		}
+		try {
+			saving.join();
+		} catch (CompletionException | CancellationException e) {
+			// Handled by the lost flag
+		}
+		saving = null;
+	}
+
+	/**
+	 * Replays the journal of a resource file, if any.
+	 *
+	 * @param resource the loaded resource
+	 * @return true if a journal has been replayed
+	 * @throws IOException if the journal cannot be read or does not match the
+	 *             resource contents
+	 */
+	static boolean replay(Resource resource) throws IOException {
+		File base = file(resource.getURI());
+		File journal = journal(resource.getURI());
+		if (base == null || !matches(journal, base)) {
+			return false;
+		}
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(journal)))) {
+			in.skipBytes(4 + 1 + 8 + 8);
+			while (true) {
+				byte[] batch;
+				try {
+					batch = new byte[in.readInt()];
+					in.readFully(batch);
+				} catch (EOFException e) {
+					// No more batch, or an incomplete one which is ignored
+					break;
+				}
+				DeltaReader.apply(resource, new DataInputStream(new ByteArrayInputStream(batch)));
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Deletes the journal of a resource file, if any.
+	 *
+	 * @param uri the resource URI
+	 */
+	static void delete(URI uri) {
+		File journal = journal(uri);
+		if (journal != null && journal.exists()) {
+			journal.delete();
+		}
+	}
+
+	private static boolean matches(File journal, File base) throws IOException {
+		if (journal == null || !journal.isFile() || !base.isFile()) {
+			return false;
+		}
+		try (DataInputStream in = new DataInputStream(new FileInputStream(journal))) {
+			return in.readInt() == MAGIC && in.readByte() == VERSION && in.readLong() == base.length()
+					&& in.readLong() == base.lastModified();
+		} catch (EOFException e) {
+			return false;
+		}
+	}
+
+	/*
+	 * Only local and uncompressed resource files can be journaled.
+	 */
+	private static File file(URI uri) {
+		if (uri == null || !uri.isFile() || CompressedURIConverter.isCompressed(uri)) {
+			return null;
+		}
+		return new File(uri.toFileString());
+	}
+
+	private static File journal(URI uri) {
+		File base = file(uri);
+		return base == null ? null : new File(base.getPath() + "." + EXTENSION);
+	}
+}
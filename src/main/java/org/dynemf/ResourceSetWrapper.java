@@ -5,19 +5,46 @@
  *******************************************************************************/
 package org.dynemf;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.common.notify.impl.AdapterImpl;
 import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EAttribute;
+import org.eclipse.emf.ecore.EClass;
 import org.eclipse.emf.ecore.EFactory;
 import org.eclipse.emf.ecore.EObject;
 import org.eclipse.emf.ecore.EPackage;
 import org.eclipse.emf.ecore.resource.Resource;
 import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.emf.ecore.impl.EPackageRegistryImpl;
 import org.eclipse.emf.ecore.resource.impl.BinaryResourceImpl;
 import org.eclipse.emf.ecore.resource.impl.ResourceFactoryImpl;
+import org.eclipse.emf.ecore.resource.impl.ResourceFactoryRegistryImpl;
 import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.emf.ecore.xmi.XMLResource;
 import org.eclipse.emf.ecore.xmi.impl.EcoreResourceFactoryImpl;
 import org.eclipse.emf.ecore.xmi.impl.XMIResourceFactoryImpl;
 import org.eclipse.emf.ecore.xmi.impl.XMIResourceImpl;
@@ -26,6 +53,11 @@ import org.eclipse.emf.ecore.xmi.impl.XMIResourceImpl;
  * Wraps an EMF {@link ResourceSet} and provides facilities to register
  * metamodels/factories and to create/open resources.
  * 
+ * A ResourceSetWrapper can be shared between threads: {@link EPackageWrapper}
+ * lookups are lock-free once the wrapper exists, while metamodel registration
+ * and resources creation/opening are serialized on a lock private to this
+ * instance.
+ * 
  * @author Vincent Aranega
  * 
  */
@@ -33,14 +65,22 @@ public class ResourceSetWrapper extends DynEMFWrapper<ResourceSet> {
 	/**
 	 * Binding between URI and produced EPackageWrapper (EPACKageWrapperS)
 	 */
-	protected final Map<String, EPackageWrapper> epackws = new HashMap<>();
+	protected final ConcurrentMap<String, EPackageWrapper> epackws = new ConcurrentHashMap<>();
+
+	private final Object lock = new Object();
+	private final CountingParserPool parsers = new CountingParserPool();
+	private final FeatureNameMap names = new FeatureNameMap();
+	private final Set<Object> profileOptions = new HashSet<>();
+	private volatile IOProfile profile;
 
 	ResourceSetWrapper() {
 		super(createResourceSet());
+		apply(IOProfile.BALANCED, true);
 	}
 
 	ResourceSetWrapper(ResourceSet rset) {
 		super(rset);
+		apply(IOProfile.BALANCED, false);
 	}
 
 	/**
@@ -48,9 +88,14 @@ public class ResourceSetWrapper extends DynEMFWrapper<ResourceSet> {
 	 * Produced resources by extensions are:
 	 * <ul>
 	 * <li>.xmi uses {@link XMIResourceImpl}</li>
-	 * <li>.bin uses {@link BinaryResourceImpl}</li>
+	 * <li>.bin uses {@link MappedBinaryResourceImpl} (a {@link BinaryResourceImpl}
+	 * which can be memory mapped with
+	 * {@link MappedBinaryResourceImpl#OPTION_MEMORY_MAPPED})</li>
 	 * <li>.ecore uses {@link XMIResourceImpl}</li>
 	 * <li>.* uses {@link XMIResourceImpl}</li>
+	 * <li>.gz uses the resource of the preceding extension (<i>e.g.</i>:
+	 * .xmi.gz or .bin.gz), its content is gzipped by the
+	 * {@link CompressedURIConverter} of the ResourceSet</li>
 	 * </ul>
 	 * This method can be override in order to change the basic ResourceSet used
 	 * by this wrapper.
@@ -63,14 +108,88 @@ public class ResourceSetWrapper extends DynEMFWrapper<ResourceSet> {
 		result.getResourceFactoryRegistry().getExtensionToFactoryMap().put("bin", new ResourceFactoryImpl() {
 			@Override
 			public Resource createResource(URI uri) {
-				return new BinaryResourceImpl(uri);
+				return new MappedBinaryResourceImpl(uri);
 			}
 		});
 		result.getResourceFactoryRegistry().getExtensionToFactoryMap().put("ecore", new EcoreResourceFactoryImpl());
 		result.getResourceFactoryRegistry().getExtensionToFactoryMap().put("*", new XMIResourceFactoryImpl());
+		result.getResourceFactoryRegistry().getExtensionToFactoryMap().put(CompressedURIConverter.EXTENSION,
+				CompressedURIConverter.factory(result.getResourceFactoryRegistry()));
+		result.setURIConverter(new CompressedURIConverter());
 		return result;
 	}
 
+	/**
+	 * Sets the I/O profile of this instance: its load options are applied to
+	 * every resource opened from now on and its save options are used by the
+	 * {@link ResourceWrapper}s created or opened from now on.
+	 * 
+	 * @param profile the profile to use
+	 * @return this ResourceSetWrapper instance
+	 */
+	public ResourceSetWrapper profile(IOProfile profile) {
+		apply(profile, true);
+		return this;
+	}
+
+	/**
+	 * Gets the current I/O profile of this instance.
+	 * 
+	 * @return the current profile
+	 */
+	public IOProfile profile() {
+		return profile;
+	}
+
+	/**
+	 * Gets a snapshot of the reuse of the parser pool and of the name to
+	 * feature map shared by the XMI loads of this instance (they are used by
+	 * the {@link IOProfile#isPooled() pooled} profiles).
+	 * 
+	 * @return the current statistics
+	 */
+	public LoadStats loadStats() {
+		return new LoadStats(parsers.counts(), names.lookups(), names.hits(), names.byPackage());
+	}
+
+	/**
+	 * Resets the statistics of the parser pool and of the name to feature map.
+	 * 
+	 * @return this ResourceSetWrapper instance
+	 */
+	public ResourceSetWrapper resetLoadStats() {
+		parsers.reset();
+		names.reset();
+		return this;
+	}
+
+	/*
+	 * Replaces the load options of the previous profile by the ones of the new
+	 * profile. Options already set on a wrapped ResourceSet are kept unless
+	 * override is true.
+	 */
+	private void apply(IOProfile profile, boolean override) {
+		synchronized (lock) {
+			Map<Object, Object> loadOptions = result().getLoadOptions();
+			for (Object key : profileOptions) {
+				loadOptions.remove(key);
+			}
+			profileOptions.clear();
+			Map<Object, Object> options = profile.loadOptions();
+			if (profile.isPooled()) {
+				options.put(XMLResource.OPTION_USE_PARSER_POOL, parsers);
+				options.put(XMLResource.OPTION_USE_XML_NAME_TO_FEATURE_MAP, names);
+			}
+			for (Map.Entry<Object, Object> option : options.entrySet()) {
+				if (override || !loadOptions.containsKey(option.getKey())) {
+					loadOptions.put(option.getKey(), option.getValue());
+					profileOptions.add(option.getKey());
+				}
+			}
+			this.profile = profile;
+		}
+	}
+
 	/**
 	 * Copies the package registry from an existing {@link ResourceSet} to this
 	 * instance.
@@ -79,7 +198,9 @@ public class ResourceSetWrapper extends DynEMFWrapper<ResourceSet> {
 	 * @return this ResourceSetWrapper instance
 	 */
 	public ResourceSetWrapper copyPackageRegistry(ResourceSet rset) {
-		result().getPackageRegistry().putAll(rset.getPackageRegistry());
+		synchronized (lock) {
+			result().getPackageRegistry().putAll(rset.getPackageRegistry());
+		}
 		return this;
 	}
 
@@ -92,7 +213,9 @@ public class ResourceSetWrapper extends DynEMFWrapper<ResourceSet> {
 	 * @return this ResourceSetWrapper instance
 	 */
 	public ResourceSetWrapper factory(String extension, EFactory factory) {
-		result().getResourceFactoryRegistry().getExtensionToFactoryMap().put(extension, factory);
+		synchronized (lock) {
+			result().getResourceFactoryRegistry().getExtensionToFactoryMap().put(extension, factory);
+		}
 		return this;
 	}
 
@@ -104,12 +227,8 @@ public class ResourceSetWrapper extends DynEMFWrapper<ResourceSet> {
 	 * @return an EPackageWrapper
 	 */
 	public EPackageWrapper ePackage(String nsUri) {
-		if (this.epackws.containsKey(nsUri)) {
-			return this.epackws.get(nsUri);
-		}
-		EPackageWrapper epackw = new EPackageWrapper(result().getPackageRegistry().getEPackage(nsUri));
-		this.epackws.put(nsUri, epackw);
-		return epackw;
+		return this.epackws.computeIfAbsent(nsUri,
+				uri -> new EPackageWrapper(result().getPackageRegistry().getEPackage(uri)));
 	}
 
 	/**
@@ -132,8 +251,7 @@ public class ResourceSetWrapper extends DynEMFWrapper<ResourceSet> {
 	 * @return this ResourceSetWrapper instance
 	 */
 	public ResourceSetWrapper register(String nsUri, EPackage pack) {
-		result().getPackageRegistry().put(nsUri, pack);
-		update(pack.getNsURI(), pack);
+		put(nsUri, pack);
 		return this;
 	}
 
@@ -170,17 +288,28 @@ public class ResourceSetWrapper extends DynEMFWrapper<ResourceSet> {
 	 * @return this ResourceSetWrapper instance
 	 */
 	public ResourceSetWrapper register(URI uri) {
-		Resource metam = result().getResource(uri, true);
-		for (EObject root : metam.getContents()) {
-			if (root instanceof EPackage) {
-				EPackage pack = (EPackage) root;
-				result().getPackageRegistry().put(pack.getNsURI(), pack);
-				update(pack.getNsURI(), pack);
+		synchronized (lock) {
+			Resource metam = result().getResource(uri, true);
+			for (EObject root : metam.getContents()) {
+				if (root instanceof EPackage) {
+					EPackage pack = (EPackage) root;
+					put(pack.getNsURI(), pack);
+				}
 			}
 		}
 		return this;
 	}
 
+	private void put(String nsUri, EPackage pack) {
+		synchronized (lock) {
+			Object previous = result().getPackageRegistry().put(nsUri, pack);
+			if (previous instanceof EPackage) {
+				names.invalidate((EPackage) previous);
+			}
+			update(pack.getNsURI(), pack);
+		}
+	}
+
 	/**
 	 * Updates the {@link EPackageWrapper} created from this ResourceWrapper in
 	 * case a metamodel is dynamically reloaded.
@@ -190,9 +319,11 @@ public class ResourceSetWrapper extends DynEMFWrapper<ResourceSet> {
 	 *            {@link EPackageWrapper} instances.
 	 */
 	protected void update(String uri, EPackage pack) {
-		if (this.epackws.containsKey(uri)) {
-			this.epackws.get(uri).update(pack);
-		}
+		// Serialized with ePackage(String) on the same nsURI
+		this.epackws.computeIfPresent(uri, (key, epackw) -> {
+			epackw.update(pack);
+			return epackw;
+		});
 	}
 
 	/**
@@ -214,7 +345,9 @@ public class ResourceSetWrapper extends DynEMFWrapper<ResourceSet> {
 	 * @return a new {@link ResourceWrapper}
 	 */
 	public ResourceWrapper create(URI model) {
-		return new ResourceWrapper(result().createResource(model));
+		synchronized (lock) {
+			return new ResourceWrapper(result().createResource(model), profile);
+		}
 	}
 
 	/**
@@ -236,7 +369,526 @@ public class ResourceSetWrapper extends DynEMFWrapper<ResourceSet> {
 	 * @return a new {@link ResourceWrapper}
 	 */
 	public ResourceWrapper open(URI model) {
-		return new ResourceWrapper(result().getResource(model, true));
+		synchronized (lock) {
+			return new ResourceWrapper(result().getResource(model, true), profile);
+		}
+	}
+
+	/**
+	 * Reads an existing XMI model in one pass without loading it: the visitor
+	 * is called for each element, children first, with a wrapper only valid
+	 * during the call. Read elements are discarded, so the memory used does
+	 * not depend on the size of the model. Elements carry their attributes
+	 * and are attached to their containers during the visit, but
+	 * non-containment references are not set.
+	 * 
+	 * @param path the path to the model
+	 * @param visitor the visitor called for each element
+	 * @return this ResourceSetWrapper instance
+	 * @throws IOException if the model cannot be read
+	 */
+	public ResourceSetWrapper stream(String path, EObjectVisitor visitor) throws IOException {
+		return stream(URI.createFileURI(path), visitor);
+	}
+
+	/**
+	 * Reads an existing XMI model in one pass without loading it (see
+	 * {@link #stream(String, EObjectVisitor)}).
+	 * 
+	 * @param model the model URI
+	 * @param visitor the visitor called for each element
+	 * @return this ResourceSetWrapper instance
+	 * @throws IOException if the model cannot be read
+	 */
+	public ResourceSetWrapper stream(URI model, EObjectVisitor visitor) throws IOException {
+		if (CompressedURIConverter.isBinary(model)) {
+			throw new UnsupportedOperationException("Binary resources cannot be streamed");
+		}
+		EPackage.Registry packages;
+		InputStream stream;
+		synchronized (lock) {
+			packages = result().getPackageRegistry();
+			stream = result().getURIConverter().createInputStream(model);
+		}
+		XMIStreamReader.read(stream, packages, visitor);
+		return this;
+	}
+
+	/**
+	 * Opens many existing models in parallel and gets the associated
+	 * {@link ResourceWrapper}. Models are parsed concurrently in private
+	 * staging ResourceSets sharing a snapshot of the package registry, the
+	 * resource factories and the load options of this instance. They are then
+	 * attached to the wrapped ResourceSet in the order of the given URIs.
+	 * Models are parsed using virtual threads when available, a thread per
+	 * processor otherwise. A model that cannot be opened is reported in the
+	 * result without stopping the other ones.
+	 * 
+	 * @param models the models URI
+	 * @return the opened resources and the failures
+	 */
+	public ResourceBatch openAll(Collection<URI> models) {
+		ExecutorService executor = defaultExecutor();
+		try {
+			return openAll(models, executor);
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	/**
+	 * Opens many existing models in parallel using a dedicated executor (see
+	 * {@link #openAll(Collection)}). The executor is not shut down.
+	 * 
+	 * @param models the models URI
+	 * @param executor the executor used to parse the models
+	 * @return the opened resources and the failures
+	 */
+	public ResourceBatch openAll(Collection<URI> models, ExecutorService executor) {
+		// The global registry is looked up as by the wrapped ResourceSet
+		final EPackage.Registry packages = new EPackageRegistryImpl(EPackage.Registry.INSTANCE);
+		final Resource.Factory.Registry factories;
+		final Map<URI, URI> uriMap = new HashMap<>();
+		final Map<Object, Object> options = new HashMap<>();
+		final boolean compressed;
+		List<URI> uris = new ArrayList<>(models);
+		List<Future<Resource>> loads = new ArrayList<>(uris.size());
+		synchronized (lock) {
+			packages.putAll(result().getPackageRegistry());
+			factories = copy(result().getResourceFactoryRegistry());
+			uriMap.putAll(result().getURIConverter().getURIMap());
+			compressed = result().getURIConverter() instanceof CompressedURIConverter;
+			options.putAll(result().getLoadOptions());
+			for (final URI uri : uris) {
+				Resource existing = result().getResource(uri, false);
+				if (existing != null && existing.isLoaded()) {
+					loads.add(null);
+					continue;
+				}
+				loads.add(executor.submit(new Callable<Resource>() {
+					@Override
+					public Resource call() throws Exception {
+						ResourceSet staging = new ResourceSetImpl();
+						staging.setPackageRegistry(packages);
+						staging.setResourceFactoryRegistry(factories);
+						if (compressed) {
+							staging.setURIConverter(new CompressedURIConverter());
+						}
+						staging.getURIConverter().getURIMap().putAll(uriMap);
+						staging.getLoadOptions().putAll(options);
+						Resource resource = staging.createResource(uri);
+						if (resource == null) {
+							throw new IOException("No resource factory registered for '" + uri + "'");
+						}
+						resource.load(options);
+						return resource;
+					}
+				}));
+			}
+		}
+
+		ResourceBatch batch = new ResourceBatch();
+		for (int i = 0; i < uris.size(); i++) {
+			URI uri = uris.get(i);
+			try {
+				Resource loaded = loads.get(i) == null ? null : loads.get(i).get();
+				synchronized (lock) {
+					Resource existing = result().getResource(uri, false);
+					if (existing != null && existing.isLoaded()) {
+						batch.resources.add(new ResourceWrapper(existing, profile));
+						continue;
+					}
+					if (loaded == null) {
+						loaded = result().getResource(uri, true);
+					} else {
+						if (existing != null) {
+							result().getResources().remove(existing);
+						}
+						result().getResources().add(loaded);
+					}
+					batch.resources.add(new ResourceWrapper(loaded, profile));
+				}
+			} catch (ExecutionException e) {
+				batch.failures.put(uri, e.getCause() instanceof Exception ? (Exception) e.getCause() : e);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				batch.failures.put(uri, e);
+			} catch (RuntimeException e) {
+				batch.failures.put(uri, e);
+			}
+		}
+		return batch;
+	}
+
+	/*
+	 * Copies a factory registry, so the staging ResourceSets do not read the
+	 * registry of the wrapped ResourceSet while it can be modified.
+	 */
+	private static Resource.Factory.Registry copy(Resource.Factory.Registry registry) {
+		Resource.Factory.Registry copy = new ResourceFactoryRegistryImpl();
+		copy.getExtensionToFactoryMap().putAll(registry.getExtensionToFactoryMap());
+		copy.getProtocolToFactoryMap().putAll(registry.getProtocolToFactoryMap());
+		copy.getContentTypeToFactoryMap().putAll(registry.getContentTypeToFactoryMap());
+		Map<String, Object> extensions = copy.getExtensionToFactoryMap();
+		if (extensions.get(CompressedURIConverter.EXTENSION) instanceof CompressedURIConverter.DelegatingFactory) {
+			extensions.put(CompressedURIConverter.EXTENSION, CompressedURIConverter.factory(copy));
+		}
+		return copy;
+	}
+
+	private static ExecutorService defaultExecutor() {
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (ReflectiveOperationException e) {
+			return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+		}
+	}
+
+	/**
+	 * Tracks the modifications of every resource of this instance, including
+	 * the resources created or opened from now on (see
+	 * {@link ResourceWrapper#trackChanges()}).
+	 * 
+	 * @return this ResourceSetWrapper instance
+	 */
+	public ResourceSetWrapper trackChanges() {
+		return track(false);
+	}
+
+	/**
+	 * Tracks the modifications of every resource of this instance and records
+	 * the changes of its binary resources in journals, including the
+	 * resources created or opened from now on (see
+	 * {@link ResourceWrapper#journal()}). The other resources are saved as a
+	 * whole by {@link #saveDirty()}.
+	 * 
+	 * @return this ResourceSetWrapper instance
+	 */
+	public ResourceSetWrapper journal() {
+		return track(true);
+	}
+
+	private ResourceSetWrapper track(boolean journal) {
+		synchronized (lock) {
+			ChangeTracker tracker = (ChangeTracker) EcoreUtil.getExistingAdapter(result(), ChangeTracker.class);
+			if (tracker == null) {
+				tracker = new ChangeTracker();
+				result().eAdapters().add(tracker);
+			}
+			tracker.journal |= journal;
+			for (Resource resource : result().getResources()) {
+				tracker.track(resource);
+			}
+		}
+		return this;
+	}
+
+	/**
+	 * Gets the resources of this instance modified since they have been
+	 * loaded or saved (only tracked resources are marked as modified, see
+	 * {@link #trackChanges()}).
+	 * 
+	 * @return the modified resources
+	 */
+	public List<ResourceWrapper> dirty() {
+		List<ResourceWrapper> result = new ArrayList<>();
+		synchronized (lock) {
+			for (Resource resource : result().getResources()) {
+				if (resource.isModified()) {
+					result.add(new ResourceWrapper(resource, profile));
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Saves the modified resources of this instance only (see
+	 * {@link ResourceWrapper#saveDirty()}).
+	 * 
+	 * @return this ResourceSetWrapper instance
+	 * @throws IOException if an exception occurred during the saving operation.
+	 */
+	public ResourceSetWrapper saveDirty() throws IOException {
+		for (ResourceWrapper resource : dirty()) {
+			resource.saveDirty();
+		}
+		return this;
+	}
+
+	/**
+	 * Indexes the elements of every resource of this instance by meta-class,
+	 * including the resources created or opened from now on, so
+	 * {@link #allInstances(EClass)} does not walk the resources contents. The
+	 * index is maintained as the elements are added or removed.
+	 *
+	 * The index is not thread-safe: once indexed, the resources of this
+	 * instance must only be modified and queried by one thread at a time
+	 * (see {@link InstanceIndex}).
+	 *
+	 * @return this ResourceSetWrapper instance
+	 */
+	public ResourceSetWrapper index() {
+		synchronized (lock) {
+			InstanceIndex.attach(result());
+		}
+		return this;
+	}
+
+	/**
+	 * Indexes the instances of a meta-class held by the resources of this
+	 * instance by the values of one of their attributes, <i>e.g.</i>: to
+	 * resolve elements by a business key (see {@link AttributeIndex}). The
+	 * index is maintained as the elements are modified, added or removed,
+	 * including in the resources created or opened from now on. Declaring
+	 * the same index twice returns the existing one.
+	 *
+	 * As {@link #index()}, the returned index is not thread-safe: the indexed
+	 * elements must not be modified by a thread while another one modifies
+	 * them or queries the index.
+	 *
+	 * @param nsUri the nsURI of the metamodel
+	 * @param eClass the meta-class name
+	 * @param attribute the name of the attribute to index
+	 * @return the index
+	 */
+	public AttributeIndex index(String nsUri, String eClass, String attribute) {
+		synchronized (lock) {
+			return AttributeIndex.attach(result(), result().getPackageRegistry(), nsUri, eClass, attribute);
+		}
+	}
+
+	/**
+	 * Indexes the instances of a meta-class held by the resources of this
+	 * instance by the values of one of their attributes (see
+	 * {@link #index(String, String, String)}). The index must be used by a
+	 * single thread at a time.
+	 *
+	 * @param eClass the meta-class
+	 * @param attribute the attribute to index
+	 * @return the index
+	 */
+	public AttributeIndex index(EClass eClass, EAttribute attribute) {
+		synchronized (lock) {
+			return AttributeIndex.attach(result(), eClass, attribute);
+		}
+	}
+
+	/**
+	 * Caches the wrappers of the elements held by this instance, so
+	 * navigating repeatedly to an element from a cached wrapper (starting
+	 * from {@link ResourceWrapper#root()}) returns the same wrapper instead of
+	 * a new one (see {@link WrapperCache}). Calling this method again replaces
+	 * the cache.
+	 *
+	 * @param capacity the number of wrappers kept at most
+	 * @return this ResourceSetWrapper instance
+	 */
+	public ResourceSetWrapper cache(int capacity) {
+		synchronized (lock) {
+			WrapperCache.attach(result(), capacity);
+		}
+		return this;
+	}
+
+	/**
+	 * Gets the wrapper cache of this instance, <i>e.g.</i>: to check its hit
+	 * rate.
+	 *
+	 * @return the cache or null if the wrappers are not cached
+	 */
+	public WrapperCache cache() {
+		return WrapperCache.of(result());
+	}
+
+	/**
+	 * Gets the instances of a meta-class (including the instances of its
+	 * sub-classes) contained by the resources of this instance. The
+	 * resources are indexed by the first call (see {@link #index()}).
+	 *
+	 * @param eClass the meta-class
+	 * @return a live view on the instances
+	 */
+	public InstanceSet allInstances(EClass eClass) {
+		synchronized (lock) {
+			return new InstanceSet(InstanceIndex.attach(result()).instances(eClass));
+		}
+	}
+
+	/**
+	 * Gets the instances of a meta-class designated by its name (see
+	 * {@link #allInstances(EClass)}). The name must designate a single
+	 * meta-class.
+	 *
+	 * @param name the meta-class name
+	 * @return a live view on the instances
+	 */
+	public InstanceSet allInstances(String name) {
+		synchronized (lock) {
+			InstanceIndex index = InstanceIndex.attach(result());
+			return new InstanceSet(index.instances(index.eClass(name, result().getPackageRegistry())));
+		}
+	}
+
+	/**
+	 * Starts a lazy {@link Query} over the instances of a meta-class
+	 * (including the instances of its sub-classes) contained by the resources
+	 * of this instance. The indexes of this instance are used if they exist
+	 * (see {@link #index()} and {@link #index(String, String, String)}).
+	 *
+	 * @param eClass the meta-class
+	 * @return a new Query
+	 */
+	public Query query(EClass eClass) {
+		return Query.instances(result(), eClass);
+	}
+
+	/**
+	 * Starts a lazy {@link Query} over the instances of a meta-class
+	 * designated by its name (see {@link #query(EClass)}). The name must
+	 * designate a single meta-class.
+	 *
+	 * @param name the meta-class name
+	 * @return a new Query
+	 */
+	public Query query(String name) {
+		synchronized (lock) {
+			InstanceIndex index = InstanceIndex.of(result());
+			EPackage.Registry registry = result().getPackageRegistry();
+			return query(index != null ? index.eClass(name, registry) : InstanceIndex.eClass(registry, name));
+		}
+	}
+
+	/**
+	 * Visits all the elements of the resources of this instance in parallel
+	 * in the common fork-join pool (see
+	 * {@link #parallelVisit(EObjectVisitor, ForkJoinPool)}).
+	 *
+	 * @param visitor the visitor called for each element, from many threads
+	 * @return this ResourceSetWrapper instance
+	 */
+	public ResourceSetWrapper parallelVisit(EObjectVisitor visitor) {
+		return parallelVisit(visitor, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Visits all the elements of the resources of this instance in parallel
+	 * (see {@link ResourceWrapper#parallelVisit(EObjectVisitor, ForkJoinPool)}):
+	 * the roots of every resource are split together. The resources must not
+	 * be modified, added or removed meanwhile.
+	 *
+	 * @param visitor the visitor called for each element, from many threads
+	 * @param pool the pool running the tasks
+	 * @return this ResourceSetWrapper instance
+	 */
+	public ResourceSetWrapper parallelVisit(EObjectVisitor visitor, ForkJoinPool pool) {
+		pool.invoke(new ContentsTask(roots(), visitor));
+		return this;
+	}
+
+	/**
+	 * Gets a {@link Spliterator} over all the elements of the resources of
+	 * this instance (see {@link ResourceWrapper#spliterator()}).
+	 *
+	 * @return a new Spliterator
+	 */
+	public Spliterator<EObjectWrapper<?>> spliterator() {
+		return new ContentsSpliterator(roots());
+	}
+
+	/**
+	 * Streams all the elements of the resources of this instance,
+	 * <i>e.g.</i>: {@code elements().parallel()} for a read-only pass in
+	 * parallel (see {@link #spliterator()}).
+	 *
+	 * @return a new sequential Stream
+	 */
+	public Stream<EObjectWrapper<?>> elements() {
+		return StreamSupport.stream(spliterator(), false);
+	}
+
+	private List<EObject> roots() {
+		List<EObject> roots = new ArrayList<>();
+		synchronized (lock) {
+			for (Resource resource : new ArrayList<>(result().getResources())) {
+				roots.addAll(resource.getContents());
+			}
+		}
+		return roots;
+	}
+
+	/**
+	 * Starts recording the changes of every resource of this instance,
+	 * including the resources created or opened from now on, in a
+	 * {@link DeltaLog}.
+	 *
+	 * @return the log recording the changes
+	 */
+	public DeltaLog record() {
+		return new DeltaLog(result());
+	}
+
+	/**
+	 * Applies a log recorded by a {@link DeltaLog} on the resources of this
+	 * instance. The resources which are not yet in this instance are opened,
+	 * or created if they do not exist.
+	 *
+	 * @param log the encoded log
+	 * @return this ResourceSetWrapper instance
+	 * @throws IOException if the log cannot be read or does not match the
+	 *             resources.
+	 */
+	public ResourceSetWrapper apply(byte[] log) throws IOException {
+		return apply(new ByteArrayInputStream(log));
+	}
+
+	/**
+	 * Applies a log recorded by a {@link DeltaLog} on the resources of this
+	 * instance (see {@link #apply(byte[])}).
+	 *
+	 * @param stream the stream to read the log from (it is not closed)
+	 * @return this ResourceSetWrapper instance
+	 * @throws IOException if the log cannot be read or does not match the
+	 *             resources.
+	 */
+	public ResourceSetWrapper apply(InputStream stream) throws IOException {
+		synchronized (lock) {
+			DeltaLog.apply(result(), stream);
+		}
+		return this;
+	}
+
+	/*
+	 * Tracks the resources added to the ResourceSet.
+	 */
+	private static final class ChangeTracker extends AdapterImpl {
+		volatile boolean journal;
+
+		@Override
+		public boolean isAdapterForType(Object type) {
+			return type == ChangeTracker.class;
+		}
+
+		@Override
+		public void notifyChanged(Notification msg) {
+			if (msg.getFeatureID(ResourceSet.class) != ResourceSet.RESOURCE_SET__RESOURCES) {
+				return;
+			}
+			if (msg.getEventType() == Notification.ADD) {
+				track((Resource) msg.getNewValue());
+			} else if (msg.getEventType() == Notification.ADD_MANY) {
+				for (Object resource : (List<?>) msg.getNewValue()) {
+					track((Resource) resource);
+				}
+			}
+		}
+
+		void track(Resource resource) {
+			resource.setTrackingModification(true);
+			if (journal && resource instanceof MappedBinaryResourceImpl) {
+				ResourceJournal.attach(resource);
+			}
+		}
 	}
 
 	/*
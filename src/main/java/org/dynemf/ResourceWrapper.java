@@ -5,18 +5,32 @@
  *******************************************************************************/
 package org.dynemf;
 
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.util.HashMap;
+import java.util.Collection;
 import java.util.Map;
+import java.util.Spliterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EAttribute;
+import org.eclipse.emf.ecore.EClass;
 import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EPackage;
 import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.emf.ecore.resource.URIConverter;
 import org.eclipse.emf.ecore.resource.impl.BinaryResourceImpl;
+import org.eclipse.emf.ecore.util.EcoreUtil.Copier;
+import org.eclipse.emf.ecore.xmi.XMLResource;
 import org.eclipse.emf.ecore.xmi.impl.XMIResourceImpl;
 
 /**
@@ -27,54 +41,100 @@ import org.eclipse.emf.ecore.xmi.impl.XMIResourceImpl;
  *
  */
 public class ResourceWrapper extends DynEMFWrapper<Resource> {
+	private IOProfile profile;
 
 	ResourceWrapper(Resource res) {
+		this(res, IOProfile.BALANCED);
+	}
+
+	ResourceWrapper(Resource res, IOProfile profile) {
 		super(res);
+		this.profile = profile;
+	}
+
+	/**
+	 * Sets the I/O profile used when the wrapped resource is saved or loaded
+	 * without explicit options.
+	 * 
+	 * @param profile the profile to use
+	 * @return this instance of ResourceWrapper
+	 */
+	public ResourceWrapper profile(IOProfile profile) {
+		this.profile = profile;
+		return this;
+	}
+
+	/**
+	 * Gets the I/O profile used when the wrapped resource is saved or loaded
+	 * without explicit options.
+	 * 
+	 * @return the current profile
+	 */
+	public IOProfile profile() {
+		return profile;
 	}
 
 	/**
 	 * Saves the wrapped resource with dedicated options.
 	 * 
-	 * @param options a map of the options to use during saving
+	 * @param options a map of the options to use during saving (the options
+	 *            of the profile are used if null)
 	 * @return this instance of ResourceWrapper
 	 * @throws IOException if an exception occurred during the saving operation.
 	 */
 	public ResourceWrapper save(Map<?, ?> options) throws IOException {
-		result().save(options);
+		Resource r = result();
+		if (options == null) {
+			options = profile.saveOptions();
+		}
+		if (r.getResourceSet() == null && CompressedURIConverter.isCompressed(r.getURI())) {
+			// Without ResourceSet, EMF would use a converter ignoring compression
+			OutputStream stream = CompressedURIConverter.DEFAULT.createOutputStream(r.getURI(), options);
+			try {
+				r.save(stream, options);
+			} finally {
+				stream.close();
+			}
+			return this;
+		}
+		r.save(options);
 		return this;
 	}
 
 	/**
-	 * Saves the wrapped resource without options.
+	 * Saves the wrapped resource with the options of its profile.
 	 * 
 	 * @return this instance of ResourceWrapper
 	 * @throws IOException if an exception occurred during the saving operation.
 	 */
 	public ResourceWrapper save() throws IOException {
-		return save(new HashMap<>());
+		return save((Map<?, ?>) null);
 	}
 
 	/**
 	 * Saves the wrapped resource in an OutputStream with dedicated options.
 	 * 
 	 * @param stream the stream where the Resource will be saved
+	 * @param options a map of the options to use during saving (the options
+	 *            of the profile are used if null)
 	 * @return this instance of ResourceWrapper
 	 * @throws IOException if an exception occurred during the saving operation.
 	 */
 	public ResourceWrapper save(OutputStream stream, Map<?, ?> options) throws IOException {
-		result().save(stream, options);
+		result().save(stream, options != null ? options : profile.saveOptions());
 		return this;
 	}
 
 	/**
-	 * Saves the wrapped resource in an OutputStream with dedicated options.
+	 * Saves the wrapped resource in an OutputStream with the options of its
+	 * profile.
 	 * 
 	 * @param stream the stream where the Resource will be saved
 	 * @return this instance of ResourceWrapper
 	 * @throws IOException if an exception occurred during the saving operation.
 	 */
 	public ResourceWrapper save(OutputStream stream) throws IOException {
-		return save(stream, new HashMap<>());
+		return save(stream, null);
 	}
 
 	/**
@@ -95,6 +155,7 @@ public class ResourceWrapper extends DynEMFWrapper<Resource> {
 	 * 
 	 * @param path the path where the resource should be serialized
 	 * @param options a map of the options to use during the saving operation
+	 *            (the options of the profile are used if null)
 	 * @return this instance of ResourceWrapper
 	 * @throws IOException if an exception occurred during the saving operation.
 	 */
@@ -103,6 +164,303 @@ public class ResourceWrapper extends DynEMFWrapper<Resource> {
 		return save(options);
 	}
 
+	/**
+	 * Saves the wrapped resource asynchronously with the options of its
+	 * profile (see {@link #saveAsync(Map, Executor)}).
+	 * 
+	 * @return a future completed with this instance of ResourceWrapper once
+	 *         the resource is written
+	 */
+	public CompletableFuture<ResourceWrapper> saveAsync() {
+		return saveAsync(null, AsyncSaves.defaultExecutor());
+	}
+
+	/**
+	 * Saves the wrapped resource asynchronously with dedicated options (see
+	 * {@link #saveAsync(Map, Executor)}).
+	 * 
+	 * @param options a map of the options to use during saving (the options
+	 *            of the profile are used if null)
+	 * @return a future completed with this instance of ResourceWrapper once
+	 *         the resource is written
+	 */
+	public CompletableFuture<ResourceWrapper> saveAsync(Map<?, ?> options) {
+		return saveAsync(options, AsyncSaves.defaultExecutor());
+	}
+
+	/**
+	 * Saves the wrapped resource asynchronously. A snapshot (a copy) of the
+	 * resource is taken by the calling thread, the resource can then be
+	 * modified while the snapshot is serialized and written by the executor;
+	 * the wrapped resource itself is left untouched (it is not marked as
+	 * saved). Saves towards the same URI are written one after the other, and
+	 * the saves requested while another one is running are coalesced: only
+	 * the last snapshot is written, and their futures complete together. The
+	 * journal of a journaled resource (see {@link #journal()}) is discarded
+	 * once the snapshot is written.
+	 * 
+	 * @param options a map of the options to use during saving (the options
+	 *            of the profile are used if null)
+	 * @param executor the executor writing the snapshot (a shared pool of I/O
+	 *            threads is used by the other methods)
+	 * @return a future completed with this instance of ResourceWrapper once
+	 *         the resource is written, or exceptionally if the save failed
+	 */
+	public CompletableFuture<ResourceWrapper> saveAsync(Map<?, ?> options, Executor executor) {
+		Resource r = result();
+		ResourceSet rset = r.getResourceSet();
+		URIConverter converter = rset != null ? rset.getURIConverter() : CompressedURIConverter.DEFAULT;
+		CompletableFuture<Void> save = AsyncSaves.submit(snapshot(), options != null ? options : profile.saveOptions(),
+				converter, executor);
+		ResourceJournal journal = ResourceJournal.of(r);
+		if (journal != null) {
+			// The snapshot holds the changes recorded until now
+			save = journal.saving(save);
+		}
+		return save.thenApply(v -> this);
+	}
+
+	/**
+	 * Saves asynchronously the wrapped resource on the file system at a
+	 * specific location (see {@link #saveAsync(Map, Executor)}).
+	 * 
+	 * @param path the path where the resource should be serialized
+	 * @return a future completed with this instance of ResourceWrapper once
+	 *         the resource is written
+	 */
+	public CompletableFuture<ResourceWrapper> saveAsAsync(String path) {
+		result().setURI(URI.createFileURI(path));
+		return saveAsync();
+	}
+
+	/**
+	 * Tracks the modifications of the wrapped resource using EMF
+	 * notifications (see {@link Resource#setTrackingModification(boolean)}),
+	 * so {@link #isDirty()} and {@link #saveDirty()} can tell if it changed
+	 * since it has been loaded or saved.
+	 * 
+	 * @return this instance of ResourceWrapper
+	 */
+	public ResourceWrapper trackChanges() {
+		result().setTrackingModification(true);
+		return this;
+	}
+
+	/**
+	 * Indexes the elements of the wrapped resource by meta-class, so
+	 * {@link #allInstances(EClass)} does not walk its contents. The index is
+	 * maintained as the elements are added or removed.
+	 *
+	 * @return this instance of ResourceWrapper
+	 */
+	public ResourceWrapper index() {
+		InstanceIndex.attach(result());
+		return this;
+	}
+
+	/**
+	 * Indexes the instances of a meta-class held by the wrapped resource by
+	 * the values of one of their attributes (see
+	 * {@link ResourceSetWrapper#index(String, String, String)}).
+	 *
+	 * @param nsUri the nsURI of the metamodel
+	 * @param eClass the meta-class name
+	 * @param attribute the name of the attribute to index
+	 * @return the index
+	 */
+	public AttributeIndex index(String nsUri, String eClass, String attribute) {
+		ResourceSet rset = result().getResourceSet();
+		EPackage.Registry registry = rset != null ? rset.getPackageRegistry() : EPackage.Registry.INSTANCE;
+		return AttributeIndex.attach(result(), registry, nsUri, eClass, attribute);
+	}
+
+	/**
+	 * Indexes the instances of a meta-class held by the wrapped resource by
+	 * the values of one of their attributes (see
+	 * {@link ResourceSetWrapper#index(String, String, String)}).
+	 *
+	 * @param eClass the meta-class
+	 * @param attribute the attribute to index
+	 * @return the index
+	 */
+	public AttributeIndex index(EClass eClass, EAttribute attribute) {
+		return AttributeIndex.attach(result(), eClass, attribute);
+	}
+
+	/**
+	 * Gets the instances of a meta-class (including the instances of its
+	 * sub-classes) contained by the wrapped resource. The resource is indexed
+	 * by the first call (see {@link #index()}).
+	 *
+	 * @param eClass the meta-class
+	 * @return a live view on the instances
+	 */
+	public InstanceSet allInstances(EClass eClass) {
+		return new InstanceSet(InstanceIndex.attach(result()).instances(eClass));
+	}
+
+	/**
+	 * Gets the instances of a meta-class designated by its name (see
+	 * {@link #allInstances(EClass)}). The name must designate a single
+	 * meta-class.
+	 *
+	 * @param name the meta-class name
+	 * @return a live view on the instances
+	 */
+	public InstanceSet allInstances(String name) {
+		InstanceIndex index = InstanceIndex.attach(result());
+		ResourceSet rset = result().getResourceSet();
+		EPackage.Registry registry = rset != null ? rset.getPackageRegistry() : EPackage.Registry.INSTANCE;
+		return new InstanceSet(index.instances(index.eClass(name, registry)));
+	}
+
+	/**
+	 * Starts a lazy {@link Query} over the roots of the wrapped resource.
+	 *
+	 * @return a new Query
+	 */
+	public Query query() {
+		return Query.contents(result());
+	}
+
+	/**
+	 * Starts a lazy {@link Query} over the instances of a meta-class
+	 * (including the instances of its sub-classes) contained by the wrapped
+	 * resource. The indexes of the resource are used if they exist (see
+	 * {@link #index()} and {@link #index(String, String, String)}).
+	 *
+	 * @param eClass the meta-class
+	 * @return a new Query
+	 */
+	public Query query(EClass eClass) {
+		return Query.instances(result(), eClass);
+	}
+
+	/**
+	 * Starts a lazy {@link Query} over the instances of a meta-class
+	 * designated by its name (see {@link #query(EClass)}). The name must
+	 * designate a single meta-class.
+	 *
+	 * @param name the meta-class name
+	 * @return a new Query
+	 */
+	public Query query(String name) {
+		InstanceIndex index = InstanceIndex.of(result());
+		ResourceSet rset = result().getResourceSet();
+		EPackage.Registry registry = rset != null ? rset.getPackageRegistry() : EPackage.Registry.INSTANCE;
+		return query(index != null ? index.eClass(name, registry) : InstanceIndex.eClass(registry, name));
+	}
+
+	/**
+	 * Starts recording the changes of the wrapped resource in a
+	 * {@link DeltaLog} which can be applied on another resource set (see
+	 * {@link ResourceSetWrapper#apply(byte[])}).
+	 *
+	 * @return the log recording the changes
+	 */
+	public DeltaLog record() {
+		return new DeltaLog(result());
+	}
+
+	/**
+	 * Checks if the wrapped resource has been modified since it has been
+	 * loaded or saved (only tracked resources are marked as modified, see
+	 * {@link #trackChanges()}).
+	 * 
+	 * @return true if the resource has unsaved changes
+	 */
+	public boolean isDirty() {
+		return result().isModified();
+	}
+
+	/**
+	 * Records the changes of the wrapped binary resource (and tracks its
+	 * modifications) so {@link #saveDirty()} appends them to a journal next to
+	 * the resource file instead of rewriting the whole file. The journal is
+	 * replayed each time the resource is opened, and discarded each time the
+	 * resource is saved as a whole (<i>e.g.</i>: using {@link #save()}, which
+	 * compacts the journal into the resource file).
+	 * 
+	 * Only {@link MappedBinaryResourceImpl} resources (".bin" files) can be
+	 * journaled, and only local uncompressed files use the journal: the
+	 * modifications of other resources are only tracked, and
+	 * {@link #saveDirty()} saves them as a whole. Changes which
+	 * cannot be replayed from the journal (feature maps, some moves between
+	 * containers, references to elements out of any resource) make the next
+	 * {@link #saveDirty()} save the whole resource.
+	 * 
+	 * @return this instance of ResourceWrapper
+	 */
+	public ResourceWrapper journal() {
+		trackChanges();
+		if (result() instanceof MappedBinaryResourceImpl) {
+			ResourceJournal.attach(result());
+		}
+		return this;
+	}
+
+	/**
+	 * Saves the wrapped resource only if it has been modified (see
+	 * {@link #trackChanges()}). The changes of a journaled resource (see
+	 * {@link #journal()}) are appended to its journal, otherwise the whole
+	 * resource is saved with the options of its profile.
+	 * 
+	 * @return this instance of ResourceWrapper
+	 * @throws IOException if an exception occurred during the saving operation.
+	 */
+	public ResourceWrapper saveDirty() throws IOException {
+		Resource r = result();
+		if (!r.isModified()) {
+			return this;
+		}
+		ResourceJournal journal = ResourceJournal.of(r);
+		if (journal != null && journal.canAppend()) {
+			try {
+				journal.append();
+				r.setModified(false);
+				return this;
+			} catch (IOException e) {
+				// The whole resource is saved instead, replacing the journal
+			}
+		}
+		return save();
+	}
+
+	/*
+	 * Copies the wrapped resource contents (and XML IDs) in a resource of the
+	 * same kind, detached from any ResourceSet. References towards other
+	 * resources are kept as they are.
+	 */
+	private Resource snapshot() {
+		Resource r = result();
+		ResourceSet rset = r.getResourceSet();
+		Resource copy = null;
+		if (rset != null) {
+			Resource.Factory factory = rset.getResourceFactoryRegistry().getFactory(r.getURI());
+			copy = factory != null ? factory.createResource(r.getURI()) : null;
+		}
+		if (copy == null) {
+			copy = newResource(r.getURI());
+		}
+		Copier copier = new Copier();
+		Collection<EObject> roots = copier.copyAll(r.getContents());
+		copier.copyReferences();
+		copy.getContents().addAll(roots);
+		if (r instanceof XMLResource && copy instanceof XMLResource) {
+			XMLResource source = (XMLResource) r;
+			XMLResource target = (XMLResource) copy;
+			target.setEncoding(source.getEncoding());
+			target.setXMLVersion(source.getXMLVersion());
+			for (Map.Entry<EObject, EObject> entry : copier.entrySet()) {
+				String id = source.getID(entry.getKey());
+				if (id != null) {
+					target.setID(entry.getValue(), id);
+				}
+			}
+		}
+		return copy;
+	}
+
 	/**
 	 * Loads a file at a specific location into the wrapped resource.
 	 * 
@@ -113,22 +471,42 @@ public class ResourceWrapper extends DynEMFWrapper<Resource> {
 	 *             operation.
 	 */
 	public ResourceWrapper load(String path) throws FileNotFoundException, IOException {
-		return load(new FileInputStream(path));
+		return load(path, null);
 	}
 
 	/**
 	 * Loads a file at a specific location into the wrapped resource with
-	 * dedicated options.
+	 * dedicated options. If the
+	 * {@link MappedBinaryResourceImpl#OPTION_MEMORY_MAPPED} option is set, the
+	 * file is memory mapped instead of being read through a stream. A ".gz"
+	 * file is decompressed as it is read (and never memory mapped).
 	 * 
 	 * @param path the path to the file to load
 	 * @param options a map with the options to use during the loading operation
+	 *            (the options of the profile are used if null)
 	 * @return this instance of ResourceWrapper
 	 * @throws FileNotFoundException if the path to the file does not exist.
 	 * @throws IOException if an exception occurred during the loading
 	 *             operation.
 	 */
 	public ResourceWrapper load(String path, Map<?, ?> options) throws FileNotFoundException, IOException {
-		return load(new FileInputStream(path), options);
+		if (options == null) {
+			options = loadOptions();
+		}
+		URI uri = URI.createFileURI(path);
+		InputStream stream;
+		if (CompressedURIConverter.isCompressed(uri)) {
+			stream = CompressedURIConverter.DEFAULT.createInputStream(uri, options);
+		} else if (MappedBinaryResourceImpl.isMemoryMapped(options)) {
+			stream = MappedBinaryResourceImpl.map(new File(path));
+		} else {
+			stream = new FileInputStream(path);
+		}
+		try {
+			return load(stream, options);
+		} finally {
+			stream.close();
+		}
 	}
 
 	/**
@@ -149,15 +527,114 @@ public class ResourceWrapper extends DynEMFWrapper<Resource> {
 	 * 
 	 * @param stream the stream to be loaded
 	 * @param options a map of options to use during the loading operation
+	 *            (the options of the profile are used if null)
 	 * @return this instance of ResourceWrapper
 	 * @throws IOException if an exception occurred during the loading
 	 *             operation.
 	 */
 	public ResourceWrapper load(InputStream stream, Map<?, ?> options) throws IOException {
-		result().load(stream, options);
+		result().load(stream, options != null ? options : loadOptions());
 		return this;
 	}
 
+	/*
+	 * The load options of the profile, with the pooled structures of the
+	 * ResourceSet when it provides them.
+	 */
+	private Map<?, ?> loadOptions() {
+		Map<Object, Object> options = profile.loadOptions();
+		ResourceSet rset = result().getResourceSet();
+		if (profile.isPooled() && rset != null) {
+			Map<Object, Object> shared = rset.getLoadOptions();
+			for (Object key : new Object[] { XMLResource.OPTION_USE_PARSER_POOL,
+					XMLResource.OPTION_USE_XML_NAME_TO_FEATURE_MAP }) {
+				if (shared.containsKey(key)) {
+					options.put(key, shared.get(key));
+				}
+			}
+		}
+		return options;
+	}
+
+	/**
+	 * Reads the XMI file at the URI of the wrapped resource in one pass
+	 * without loading it into the resource: the visitor is called for each
+	 * element, children first, with a wrapper only valid during the call (see
+	 * {@link ResourceSetWrapper#stream(String, EObjectVisitor)}).
+	 * 
+	 * @param visitor the visitor called for each element
+	 * @return this instance of ResourceWrapper
+	 * @throws IOException if an exception occurred during the reading
+	 *             operation.
+	 */
+	public ResourceWrapper stream(EObjectVisitor visitor) throws IOException {
+		if (CompressedURIConverter.isBinary(result().getURI())) {
+			throw new UnsupportedOperationException("Binary resources cannot be streamed");
+		}
+		ResourceSet rset = result().getResourceSet();
+		URIConverter converter = rset != null ? rset.getURIConverter() : CompressedURIConverter.DEFAULT;
+		return stream(converter.createInputStream(result().getURI()), visitor);
+	}
+
+	/**
+	 * Reads an XMI {@link InputStream} in one pass without loading it into the
+	 * wrapped resource: the visitor is called for each element, children
+	 * first, with a wrapper only valid during the call. The metamodels are
+	 * looked up in the package registry of the resource set of the wrapped
+	 * resource.
+	 * 
+	 * @param stream the stream to be read
+	 * @param visitor the visitor called for each element
+	 * @return this instance of ResourceWrapper
+	 * @throws IOException if an exception occurred during the reading
+	 *             operation.
+	 */
+	public ResourceWrapper stream(InputStream stream, EObjectVisitor visitor) throws IOException {
+		ResourceSet rset = result().getResourceSet();
+		XMIStreamReader.read(stream, rset != null ? rset.getPackageRegistry() : EPackage.Registry.INSTANCE, visitor);
+		return this;
+	}
+
+	/**
+	 * Opens an incremental writer on the URI of the wrapped resource. The
+	 * elements given to the writer are written as they are closed without
+	 * being added to the resource (see {@link ResourceWriter}). A ".bin" URI is
+	 * written with the binary format, any other with XMI. A ".gz" URI is
+	 * compressed as it is written (see {@link CompressedURIConverter}).
+	 *
+	 * Only XMI is written with a bounded memory. The binary format gives the
+	 * size of each containment list before its elements, so the binary writer
+	 * adds the streamed children to the parent objects given by the caller
+	 * and only encodes a root when it is closed: the memory used is the one of
+	 * the largest root, that is the whole model when it has a single root.
+	 * The models larger than the heap must be written in XMI, or split across
+	 * many roots in binary.
+	 *
+	 * @return a new ResourceWriter which must be closed to complete the file
+	 * @throws IOException if the output cannot be opened.
+	 */
+	public ResourceWriter writer() throws IOException {
+		ResourceSet rset = result().getResourceSet();
+		URIConverter converter = rset != null ? rset.getURIConverter() : CompressedURIConverter.DEFAULT;
+		return writer(converter.createOutputStream(result().getURI()));
+	}
+
+	/**
+	 * Opens an incremental writer on an {@link OutputStream} (see
+	 * {@link #writer()}).
+	 *
+	 * @param stream the stream where the elements will be written
+	 * @return a new ResourceWriter which must be closed to complete the stream
+	 * @throws IOException if an exception occurred when starting the document.
+	 */
+	public ResourceWriter writer(OutputStream stream) throws IOException {
+		Resource r = result();
+		if (r instanceof BinaryResourceImpl || CompressedURIConverter.isBinary(r.getURI())) {
+			return new BinaryStreamWriter(r, stream, profile.saveOptions());
+		}
+		return new XMIStreamWriter(r, stream);
+	}
+
 	/**
 	 * Checks if the wrapped resource is empty (it contains NO elements).
 	 * 
@@ -205,7 +682,67 @@ public class ResourceWrapper extends DynEMFWrapper<Resource> {
 	 * @return the i-th root element wrapped in an {@link EObjectWrapper}
 	 */
 	public EObjectWrapper<?> root(int i) {
-		return new EObjectWrapper<EObject>(result().getContents().get(i));
+		return EObjectWrapper.obj(result().getContents().get(i), WrapperCache.of(result().getResourceSet()));
+	}
+
+	/**
+	 * Gets a cursor over all the elements of the resource (in depth-first
+	 * order), which is re-pointed at each element instead of wrapping it.
+	 * 
+	 * @return a new {@link EObjectCursor} placed before the first element
+	 */
+	public EObjectCursor cursor() {
+		return EObjectCursor.contents(result().getContents());
+	}
+
+	/**
+	 * Visits all the elements of the resource in parallel in the common
+	 * fork-join pool (see {@link #parallelVisit(EObjectVisitor, ForkJoinPool)}).
+	 * 
+	 * @param visitor the visitor called for each element, from many threads
+	 * @return this instance of ResourceWrapper
+	 */
+	public ResourceWrapper parallelVisit(EObjectVisitor visitor) {
+		return parallelVisit(visitor, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Visits all the elements of the resource in parallel: the containment
+	 * tree is split into fork-join tasks following its shape, and the method
+	 * returns once every element is visited. The traversal is meant for
+	 * read-only passes: the resource must not be modified meanwhile and the
+	 * containment proxies are not resolved. The visitor must be thread-safe,
+	 * and the given wrapper is only valid during the call.
+	 * 
+	 * @param visitor the visitor called for each element, from many threads
+	 * @param pool the pool running the tasks
+	 * @return this instance of ResourceWrapper
+	 */
+	public ResourceWrapper parallelVisit(EObjectVisitor visitor, ForkJoinPool pool) {
+		pool.invoke(new ContentsTask(result().getContents(), visitor));
+		return this;
+	}
+
+	/**
+	 * Gets a {@link Spliterator} over all the elements of the resource,
+	 * splitting the containment tree for parallel streams. The elements are
+	 * not ordered and the containment proxies are not resolved.
+	 * 
+	 * @return a new Spliterator
+	 */
+	public Spliterator<EObjectWrapper<?>> spliterator() {
+		return new ContentsSpliterator(result().getContents());
+	}
+
+	/**
+	 * Streams all the elements of the resource, <i>e.g.</i>:
+	 * {@code elements().parallel()} for a read-only pass in parallel (see
+	 * {@link #spliterator()}).
+	 * 
+	 * @return a new sequential Stream
+	 */
+	public Stream<EObjectWrapper<?>> elements() {
+		return StreamSupport.stream(spliterator(), false);
 	}
 
 	/**
@@ -259,15 +796,30 @@ public class ResourceWrapper extends DynEMFWrapper<Resource> {
 	 *             operation.
 	 */
 	public static ResourceWrapper open(URI uri) throws IOException {
-		String extension = uri.fileExtension();
-		Resource r = null;
-		if ("bin".equalsIgnoreCase(extension)) {
-			r = new BinaryResourceImpl(uri);
+		Resource r = newResource(uri);
+		ResourceWrapper wrapper = new ResourceWrapper(r);
+		if (CompressedURIConverter.isCompressed(uri)) {
+			Map<?, ?> options = wrapper.loadOptions();
+			InputStream stream = CompressedURIConverter.DEFAULT.createInputStream(uri, options);
+			try {
+				r.load(stream, options);
+			} finally {
+				stream.close();
+			}
 		} else {
-			r = new XMIResourceImpl(uri);
+			r.load(wrapper.loadOptions());
+		}
+		return wrapper;
+	}
+
+	/*
+	 * Creates the resource used for an URI outside of any ResourceSet.
+	 */
+	private static Resource newResource(URI uri) {
+		if (CompressedURIConverter.isBinary(uri)) {
+			return new MappedBinaryResourceImpl(uri);
 		}
-		r.load(null);
-		return new ResourceWrapper(r);
+		return new XMIResourceImpl(uri);
 	}
 
 	/**
@@ -0,0 +1,188 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2016 Vincent Aranega
+ *
+ * See the file LICENSE for copying permission.
+ *******************************************************************************/
+package org.dynemf;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.EStructuralFeature;
+
+/**
+ * Writes a resource incrementally: root elements and their children are
+ * appended one by one and written to the output as soon as they are closed.
+ * With XMI, the whole model never has to be held in memory; with the binary
+ * format, a root is only written once it is closed (see
+ * {@link ResourceWrapper#writer()}). Elements are opened with
+ * {@link #start(EObjectWrapper)} (a root) or
+ * {@link #start(String, EObjectWrapper)} (a child of the element currently
+ * open) and closed with {@link #end()}. The values of an element must be set
+ * before one of its children is started or before it is closed. Streamed
+ * children must not be added to their parent by hand: the writer places them
+ * in the file (the binary writer adds them to their parent). The in-memory
+ * containment tree of an element is written with
+ * the element.
+ *
+ * Non-containment references may point to elements already written while
+ * they are still referenced by the caller, to elements written later and to
+ * elements of other resources.
+ *
+ * @author Vincent Aranega
+ *
+ */
+public abstract class ResourceWriter implements Closeable {
+	private final List<EObject> stack = new ArrayList<>();
+	private boolean closed = false;
+
+	ResourceWriter() {
+	}
+
+	/**
+	 * Opens a new root element.
+	 *
+	 * @param root the root element
+	 * @return this instance of ResourceWriter
+	 * @throws IOException if an exception occurred during the writing
+	 *             operation.
+	 */
+	public ResourceWriter start(EObjectWrapper<?> root) throws IOException {
+		checkOpen();
+		if (!stack.isEmpty()) {
+			throw new RuntimeException("A root element cannot be started inside another element");
+		}
+		startRoot(root.result());
+		stack.add(root.result());
+		return this;
+	}
+
+	/**
+	 * Opens a new child of the element currently open.
+	 *
+	 * @param feature the name of the containment reference holding the child
+	 * @param child the child element
+	 * @return this instance of ResourceWriter
+	 * @throws IOException if an exception occurred during the writing
+	 *             operation.
+	 */
+	public ResourceWriter start(String feature, EObjectWrapper<?> child) throws IOException {
+		checkOpen();
+		if (stack.isEmpty()) {
+			throw new RuntimeException("No element is open to contain '" + feature + "'");
+		}
+		EObject parent = stack.get(stack.size() - 1);
+		EStructuralFeature f = parent.eClass().getEStructuralFeature(feature);
+		if (f == null) {
+			throw new RuntimeException("Feature '" + feature + "' does not exist");
+		}
+		if (!(f instanceof EReference) || !((EReference) f).isContainment()) {
+			throw new RuntimeException("Feature '" + feature + "' is not a containment reference");
+		}
+		EReference ref = (EReference) f;
+		if (!ref.getEReferenceType().isSuperTypeOf(child.result().eClass())) {
+			throw new RuntimeException("Feature '" + feature + "' cannot contain a '" + child.result().eClass().getName()
+					+ "'");
+		}
+		if (child.result().eContainer() == parent) {
+			throw new RuntimeException("Streamed children must not be added to their parent");
+		}
+		startChild(parent, ref, child.result());
+		stack.add(child.result());
+		return this;
+	}
+
+	/**
+	 * Closes the element currently open and writes what remains of it.
+	 *
+	 * @return this instance of ResourceWriter
+	 * @throws IOException if an exception occurred during the writing
+	 *             operation.
+	 */
+	public ResourceWriter end() throws IOException {
+		checkOpen();
+		if (stack.isEmpty()) {
+			throw new RuntimeException("No element is open");
+		}
+		endElement(stack.remove(stack.size() - 1));
+		return this;
+	}
+
+	/**
+	 * Writes a whole root element (with its in-memory containment tree).
+	 *
+	 * @param root the root element
+	 * @return this instance of ResourceWriter
+	 * @throws IOException if an exception occurred during the writing
+	 *             operation.
+	 */
+	public ResourceWriter write(EObjectWrapper<?> root) throws IOException {
+		return start(root).end();
+	}
+
+	/**
+	 * Writes a whole child (with its in-memory containment tree) of the element
+	 * currently open.
+	 *
+	 * @param feature the name of the containment reference holding the child
+	 * @param child the child element
+	 * @return this instance of ResourceWriter
+	 * @throws IOException if an exception occurred during the writing
+	 *             operation.
+	 */
+	public ResourceWriter write(String feature, EObjectWrapper<?> child) throws IOException {
+		return start(feature, child).end();
+	}
+
+	/**
+	 * Gets the number of elements currently open.
+	 *
+	 * @return the depth of the element currently open (0 between roots)
+	 */
+	public int depth() {
+		return stack.size();
+	}
+
+	/**
+	 * Closes every element still open, completes the document and closes the
+	 * underlying stream.
+	 *
+	 * @throws IOException if an exception occurred during the writing
+	 *             operation.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		try {
+			while (!stack.isEmpty()) {
+				end();
+			}
+			finish();
+		} finally {
+			closed = true;
+			release();
+		}
+	}
+
+	private void checkOpen() {
+		if (closed) {
+			throw new RuntimeException("The writer is closed");
+		}
+	}
+
+	abstract void startRoot(EObject root) throws IOException;
+
+	abstract void startChild(EObject parent, EReference feature, EObject child) throws IOException;
+
+	abstract void endElement(EObject obj) throws IOException;
+
+	abstract void finish() throws IOException;
+
+	abstract void release() throws IOException;
+}
@@ -7,6 +7,7 @@ package org.dynemf;
 
 import java.util.List;
 
+import org.eclipse.emf.common.util.EList;
 import org.eclipse.emf.ecore.EEnumLiteral;
 import org.eclipse.emf.ecore.EObject;
 
@@ -22,6 +23,43 @@ public class ValueWrapper<T> extends DynEMFWrapper<T> {
 		super(obj);
 	}
 
+	/**
+	 * Wraps a value in the matching {@link ValueWrapper}.
+	 * 
+	 * @param o the value to wrap
+	 * @return a new instance of ValueWrapper wrapping the value, or
+	 *         {@link NullValueWrapper#NULL}
+	 */
+	static ValueWrapper<?> wrap(Object o) {
+		return wrap(o, null);
+	}
+
+	/**
+	 * Wraps a value in the matching {@link ValueWrapper}, looking up the
+	 * {@link EObjectWrapper} in a cache.
+	 * 
+	 * @param o the value to wrap
+	 * @param cache the cache of the {@link EObjectWrapper}, or null
+	 * @return an instance of ValueWrapper wrapping the value, or
+	 *         {@link NullValueWrapper#NULL}
+	 */
+	@SuppressWarnings("unchecked")
+	static ValueWrapper<?> wrap(Object o, WrapperCache cache) {
+		if (o == null) {
+			return NullValueWrapper.NULL;
+		}
+
+		if (o instanceof EObject) {
+			return EObjectWrapper.obj((EObject) o, cache);
+		} else if (o instanceof List<?>) {
+			return new ListWrapper((EList<EObject>) o, cache);
+		} else if (o instanceof EEnumLiteral) {
+			return new EEnumLiteralWrapper((EEnumLiteral) o);
+		} else {
+			return new ValueWrapper<Object>(o);
+		}
+	}
+
 	/**
 	 * Checks if the value is a list.
 	 * 
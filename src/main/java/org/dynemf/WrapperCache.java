@@ -0,0 +1,162 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2016 Vincent Aranega
+ *
+ * See the file LICENSE for copying permission.
+ *******************************************************************************/
+package org.dynemf;
+
+import java.util.Arrays;
+
+import org.eclipse.emf.common.notify.Notifier;
+import org.eclipse.emf.common.notify.impl.AdapterImpl;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+
+/**
+ * Caches the {@link EObjectWrapper} of the elements of a resource set (see
+ * {@link ResourceSetWrapper#cache(int)}), so navigating repeatedly to an
+ * element returns the same wrapper. The wrappers built by a cached wrapper
+ * (through {@link EObjectWrapper#property(String)}, a {@link ListWrapper} or
+ * {@link ResourceWrapper#root(int)}) are looked up in the cache.
+ *
+ * The cache is a fixed-size table indexed by identity hash: an element
+ * evicts the element previously cached in the same slot, so the footprint
+ * is bounded by the capacity whatever the models size. The cache is a best
+ * effort: two wrappers of the same element can still exist (after an
+ * eviction, or when wrappers are built concurrently), so the wrappers must
+ * still be compared with equals().
+ *
+ * @author Vincent Aranega
+ *
+ */
+public final class WrapperCache extends AdapterImpl {
+	private final EObjectWrapper<?>[] slots;
+	private final int mask;
+	private long hits;
+	private long misses;
+	private boolean removed = false;
+
+	private WrapperCache(int capacity) {
+		int size = Integer.highestOneBit(Math.max(capacity - 1, 1)) << 1;
+		this.slots = new EObjectWrapper<?>[size];
+		this.mask = size - 1;
+	}
+
+	/**
+	 * Gets the cache attached to a resource set.
+	 *
+	 * @param notifier the resource set
+	 * @return the cache or null if there is none
+	 */
+	static WrapperCache of(Notifier notifier) {
+		return notifier == null ? null : (WrapperCache) EcoreUtil.getExistingAdapter(notifier, WrapperCache.class);
+	}
+
+	/**
+	 * Attaches a cache to a resource set, replacing the existing one.
+	 *
+	 * @param notifier the resource set
+	 * @param capacity the number of wrappers kept at most (rounded up to a
+	 *            power of two)
+	 * @return the attached cache
+	 */
+	static WrapperCache attach(Notifier notifier, int capacity) {
+		WrapperCache cache = of(notifier);
+		if (cache != null) {
+			cache.remove();
+		}
+		cache = new WrapperCache(capacity);
+		notifier.eAdapters().add(cache);
+		return cache;
+	}
+
+	@Override
+	public boolean isAdapterForType(Object type) {
+		return type == WrapperCache.class;
+	}
+
+	/**
+	 * Gets the cached wrapper of an element, or wraps it.
+	 *
+	 * @param o the element to wrap
+	 * @return the wrapper of the element
+	 */
+	EObjectWrapper<?> wrap(EObject o) {
+		if (removed) {
+			return EObjectWrapper.obj(o);
+		}
+		int slot = System.identityHashCode(o) & mask;
+		EObjectWrapper<?> wrapper = slots[slot];
+		if (wrapper != null && wrapper.obj == o) {
+			hits++;
+			return wrapper;
+		}
+		misses++;
+		wrapper = new EObjectWrapper<EObject>(o);
+		wrapper.cache = this;
+		slots[slot] = wrapper;
+		return wrapper;
+	}
+
+	/**
+	 * Gets the number of wrappers kept at most.
+	 *
+	 * @return the capacity
+	 */
+	public int capacity() {
+		return slots.length;
+	}
+
+	/**
+	 * Gets the number of lookups which returned a cached wrapper.
+	 *
+	 * @return the number of hits
+	 */
+	public long hits() {
+		return hits;
+	}
+
+	/**
+	 * Gets the number of lookups which created a wrapper.
+	 *
+	 * @return the number of misses
+	 */
+	public long misses() {
+		return misses;
+	}
+
+	/**
+	 * Gets the ratio of lookups which returned a cached wrapper.
+	 *
+	 * @return the hit rate between 0 and 1
+	 */
+	public double hitRate() {
+		long total = hits + misses;
+		return total == 0 ? 0 : (double) hits / total;
+	}
+
+	/**
+	 * Drops the cached wrappers (so the elements they wrap can be collected,
+	 * typically once resources are unloaded) and resets the statistics.
+	 *
+	 * @return this instance of WrapperCache
+	 */
+	public WrapperCache clear() {
+		Arrays.fill(slots, null);
+		hits = 0;
+		misses = 0;
+		return this;
+	}
+
+	/**
+	 * Stops caching the wrappers, including the ones built by the wrappers
+	 * previously given by this cache.
+	 */
+	public void remove() {
+		removed = true;
+		clear();
+		if (getTarget() != null) {
+			getTarget().eAdapters().remove(this);
+		}
+	}
+}
@@ -0,0 +1,239 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2016 Vincent Aranega
+ *
+ * See the file LICENSE for copying permission.
+ *******************************************************************************/
+package org.dynemf;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+
+import org.eclipse.emf.ecore.EAttribute;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EClassifier;
+import org.eclipse.emf.ecore.EDataType;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EPackage;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.emf.ecore.xmi.XMIResource;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+import org.xml.sax.helpers.NamespaceSupport;
+
+/**
+ * Reads an XMI document in one pass and calls an {@link EObjectVisitor} for
+ * each element without materializing the model. Each element is built with
+ * its attributes, visited once its end tag is reached (its children have
+ * already been visited), then discarded: only the elements being read (the
+ * ancestors of the current one) are kept in memory. During the visit, the
+ * element is attached to its container so ancestors can be navigated.
+ * Non-containment references are not set.
+ * 
+ * @author Vincent Aranega
+ *
+ */
+final class XMIStreamReader extends DefaultHandler {
+	private static final String XSI_URI = "http://www.w3.org/2001/XMLSchema-instance";
+
+	/**
+	 * An element being read
+	 */
+	private static final class Frame {
+		EObject obj;
+		EStructuralFeature feature;
+		StringBuilder text;
+		boolean skip;
+	}
+
+	private final EPackage.Registry packages;
+	private final EObjectVisitor visitor;
+	private final EObjectWrapper<EObject> view = new EObjectWrapper<EObject>(null);
+	private final NamespaceSupport namespaces = new NamespaceSupport();
+	private final List<Frame> stack = new ArrayList<>();
+	private boolean newContext = true;
+	private int depth = 0;
+
+	private XMIStreamReader(EPackage.Registry packages, EObjectVisitor visitor) {
+		this.packages = packages;
+		this.visitor = visitor;
+	}
+
+	/**
+	 * Reads a stream and visits each of its elements.
+	 * 
+	 * @param stream the XMI stream
+	 * @param packages the registry used to find the metamodels
+	 * @param visitor the visitor called for each element
+	 * @throws IOException if the stream cannot be read or parsed
+	 */
+	static void read(InputStream stream, EPackage.Registry packages, EObjectVisitor visitor) throws IOException {
+		XMIStreamReader reader = new XMIStreamReader(packages, visitor);
+		SAXParserFactory factory = SAXParserFactory.newInstance();
+		factory.setNamespaceAware(true);
+		try (InputStream in = new BufferedInputStream(stream, 64 * 1024)) {
+			factory.newSAXParser().parse(new InputSource(in), reader);
+		} catch (SAXException | ParserConfigurationException e) {
+			throw new IOException(e);
+		}
+	}
+
+	@Override
+	public void startPrefixMapping(String prefix, String uri) {
+		if (newContext) {
+			namespaces.pushContext();
+			newContext = false;
+		}
+		namespaces.declarePrefix(prefix, uri);
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public void startElement(String uri, String localName, String qName, Attributes attributes) throws SAXException {
+		if (newContext) {
+			namespaces.pushContext();
+		}
+		newContext = true;
+
+		Frame frame = frame(depth++);
+		frame.obj = null;
+		frame.feature = null;
+		frame.skip = false;
+		frame.text.setLength(0);
+
+		Frame parent = depth > 1 ? stack.get(depth - 2) : null;
+		if (parent != null && (parent.skip || parent.obj == null && parent.feature != null)) {
+			frame.skip = true;
+			return;
+		}
+		if (parent == null || parent.obj == null) {
+			if (parent == null && XMIResource.XMI_URI.equals(uri) && "XMI".equals(localName)) {
+				return;
+			}
+			frame.obj = create(eClass(uri, localName), attributes);
+			return;
+		}
+
+		EStructuralFeature feature = parent.obj.eClass().getEStructuralFeature(localName);
+		if (feature instanceof EAttribute) {
+			frame.feature = feature;
+		} else if (feature instanceof EReference && ((EReference) feature).isContainment()
+				&& attributes.getValue("href") == null) {
+			EClass type = type(attributes);
+			frame.obj = create(type != null ? type : ((EReference) feature).getEReferenceType(), attributes);
+			frame.feature = feature;
+			// Attached right away, so all the ancestors can be navigated
+			if (feature.isMany()) {
+				((List<EObject>) parent.obj.eGet(feature)).add(frame.obj);
+			} else {
+				parent.obj.eSet(feature, frame.obj);
+			}
+		} else {
+			frame.skip = true;
+		}
+	}
+
+	@Override
+	public void characters(char[] ch, int start, int length) {
+		Frame frame = stack.get(depth - 1);
+		if (frame.obj == null && frame.feature != null && !frame.skip) {
+			frame.text.append(ch, start, length);
+		}
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public void endElement(String uri, String localName, String qName) {
+		Frame frame = stack.get(--depth);
+		namespaces.popContext();
+		if (frame.skip) {
+			return;
+		}
+		Frame parent = depth > 0 ? stack.get(depth - 1) : null;
+		if (frame.obj == null) {
+			if (frame.feature != null) {
+				set(parent.obj, frame.feature, frame.text.toString());
+			}
+			return;
+		}
+
+		view.obj = frame.obj;
+		visitor.visit(view);
+		view.obj = null;
+		if (parent != null && parent.obj != null) {
+			if (frame.feature.isMany()) {
+				List<EObject> siblings = (List<EObject>) parent.obj.eGet(frame.feature);
+				siblings.remove(siblings.size() - 1);
+			} else {
+				parent.obj.eUnset(frame.feature);
+			}
+		}
+		frame.obj = null;
+	}
+
+	private Frame frame(int i) {
+		if (i == stack.size()) {
+			Frame frame = new Frame();
+			frame.text = new StringBuilder();
+			stack.add(frame);
+		}
+		return stack.get(i);
+	}
+
+	private EClass eClass(String nsUri, String name) throws SAXException {
+		EPackage pack = packages.getEPackage(nsUri);
+		EClassifier classifier = pack == null ? null : pack.getEClassifier(name);
+		if (!(classifier instanceof EClass)) {
+			throw new SAXException("Unknown meta-class '" + name + "' for nsURI '" + nsUri + "'");
+		}
+		return (EClass) classifier;
+	}
+
+	private EClass type(Attributes attributes) throws SAXException {
+		String type = attributes.getValue(XSI_URI, "type");
+		if (type == null) {
+			type = attributes.getValue(XMIResource.XMI_URI, "type");
+		}
+		if (type == null) {
+			return null;
+		}
+		int colon = type.indexOf(':');
+		String prefix = colon < 0 ? "" : type.substring(0, colon);
+		String nsUri = namespaces.getURI(prefix);
+		return eClass(nsUri == null ? "" : nsUri, type.substring(colon + 1));
+	}
+
+	private EObject create(EClass eClass, Attributes attributes) {
+		EObject obj = EcoreUtil.create(eClass);
+		for (int i = 0; i < attributes.getLength(); i++) {
+			String nsUri = attributes.getURI(i);
+			if (nsUri != null && !nsUri.isEmpty()) {
+				continue;
+			}
+			EStructuralFeature feature = eClass.getEStructuralFeature(attributes.getLocalName(i));
+			if (feature instanceof EAttribute) {
+				set(obj, feature, attributes.getValue(i));
+			}
+		}
+		return obj;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static void set(EObject obj, EStructuralFeature feature, String literal) {
+		Object value = EcoreUtil.createFromString((EDataType) feature.getEType(), literal);
+		if (feature.isMany()) {
+			((List<Object>) obj.eGet(feature)).add(value);
+		} else {
+			obj.eSet(feature, value);
+		}
+	}
+}
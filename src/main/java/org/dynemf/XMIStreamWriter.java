@@ -0,0 +1,374 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2016 Vincent Aranega
+ *
+ * See the file LICENSE for copying permission.
+ *******************************************************************************/
+package org.dynemf;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EAttribute;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EPackage;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+
+/**
+ * Writes an XMI document element by element. Roots are always wrapped in an
+ * {@code xmi:XMI} element and namespaces are declared on the first element
+ * using them. References to elements already written use their fragment
+ * path (kept only while the element is reachable), references to elements
+ * not written yet give them an {@code xmi:id}.
+ *
+ * @author Vincent Aranega
+ *
+ */
+final class XMIStreamWriter extends ResourceWriter {
+	private static final String XMI_URI = "http://www.omg.org/XMI";
+	private static final String XSI_URI = "http://www.w3.org/2001/XMLSchema-instance";
+
+	/**
+	 * An element being written
+	 */
+	private static final class Frame {
+		final Frame parent;
+		final EObject obj;
+		final String tag;
+		final String path;
+		final int depth;
+		EPackage declared;
+		Map<EReference, Integer> counts;
+		boolean tagClosed;
+		boolean bodyWritten;
+
+		Frame(Frame parent, EObject obj, String tag, String path) {
+			this.parent = parent;
+			this.obj = obj;
+			this.tag = tag;
+			this.path = path;
+			this.depth = parent == null ? 1 : parent.depth + 1;
+		}
+
+		int next(EReference feature) {
+			Integer count = counts == null ? null : counts.get(feature);
+			return count == null ? 0 : count;
+		}
+
+		void count(EReference feature, int count) {
+			if (counts == null) {
+				counts = new HashMap<>();
+			}
+			counts.put(feature, count);
+		}
+	}
+
+	private final Writer out;
+	private final Resource resource;
+	private final URI base;
+	private final Map<EObject, String> written = new WeakHashMap<>();
+	private final Map<EObject, String> pending = new IdentityHashMap<>();
+	private final Map<EPackage, String> prefixes = new HashMap<>();
+	private final Set<String> usedPrefixes = new HashSet<>();
+	private Frame current;
+	private int roots = 0;
+	private int ids = 0;
+
+	XMIStreamWriter(Resource resource, OutputStream stream) throws IOException {
+		this.resource = resource;
+		URI uri = resource.getURI();
+		this.base = uri != null && uri.isHierarchical() && !uri.isRelative() ? uri : null;
+		this.out = new BufferedWriter(new OutputStreamWriter(stream, "UTF-8"));
+		out.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<xmi:XMI xmi:version=\"2.0\" xmlns:xmi=\"");
+		out.write(XMI_URI);
+		out.write("\" xmlns:xsi=\"");
+		out.write(XSI_URI);
+		out.write("\">");
+	}
+
+	@Override
+	void startRoot(EObject root) throws IOException {
+		current = begin(null, null, root, roots++);
+	}
+
+	@Override
+	void startChild(EObject parent, EReference feature, EObject child) throws IOException {
+		Frame p = current;
+		if (!p.bodyWritten) {
+			body(p);
+		}
+		content(p);
+		int index = p.next(feature);
+		if (!feature.isMany() && index > 0) {
+			throw new RuntimeException("Feature '" + feature.getName() + "' already holds an element");
+		}
+		p.count(feature, index + 1);
+		current = begin(p, feature, child, index);
+	}
+
+	@Override
+	void endElement(EObject obj) throws IOException {
+		Frame f = current;
+		if (!f.bodyWritten) {
+			body(f);
+		}
+		close(f);
+		current = f.parent;
+	}
+
+	@Override
+	void finish() throws IOException {
+		out.write("\n</xmi:XMI>\n");
+		out.flush();
+		if (!pending.isEmpty()) {
+			throw new IOException(pending.size() + " referenced elements have never been written");
+		}
+	}
+
+	@Override
+	void release() throws IOException {
+		out.close();
+	}
+
+	/*
+	 * Writes the start tag of an element with its namespace, type, id,
+	 * attributes and non-containment references (the tag is left unclosed).
+	 */
+	private Frame begin(Frame parent, EReference feature, EObject obj, int index) throws IOException {
+		EClass eClass = obj.eClass();
+		EPackage pack = eClass.getEPackage();
+		boolean typed = parent == null || eClass != feature.getEReferenceType();
+		boolean declare = typed && !inScope(parent, pack);
+		String prefix = typed ? prefix(pack) : null;
+		Frame f;
+		if (parent == null) {
+			f = new Frame(null, obj, prefix + ":" + eClass.getName(), "/" + index);
+		} else {
+			f = new Frame(parent, obj, feature.getName(), parent.path + "/@" + feature.getName()
+					+ (feature.isMany() ? "." + index : ""));
+		}
+		indent(f.depth);
+		out.write('<');
+		out.write(f.tag);
+		if (declare) {
+			f.declared = pack;
+			attribute("xmlns:" + prefix, pack.getNsURI());
+		}
+		if (parent != null && typed) {
+			attribute("xsi:type", prefix + ":" + eClass.getName());
+		}
+		String id = pending.remove(obj);
+		if (id != null) {
+			attribute("xmi:id", id);
+		}
+		written.put(obj, f.path);
+		for (EStructuralFeature feat : eClass.getEAllStructuralFeatures()) {
+			if (feat.isTransient() || !obj.eIsSet(feat)) {
+				continue;
+			}
+			if (feat instanceof EReference) {
+				EReference ref = (EReference) feat;
+				if (ref.isContainment() || ref.isContainer()) {
+					continue;
+				}
+				Object value = obj.eGet(ref, false);
+				if (ref.isMany()) {
+					StringBuilder refs = new StringBuilder();
+					for (Object target : (List<?>) value) {
+						if (refs.length() > 0) {
+							refs.append(' ');
+						}
+						refs.append(reference((EObject) target));
+					}
+					attribute(ref.getName(), refs.toString());
+				} else if (value != null) {
+					attribute(ref.getName(), reference((EObject) value));
+				}
+			} else if (!feat.isMany()) {
+				Object value = obj.eGet(feat);
+				if (value != null) {
+					attribute(feat.getName(), EcoreUtil.convertToString(((EAttribute) feat).getEAttributeType(), value));
+				}
+			}
+		}
+		return f;
+	}
+
+	/*
+	 * Writes the many-valued attributes and the in-memory containment tree of
+	 * an element.
+	 */
+	private void body(Frame f) throws IOException {
+		f.bodyWritten = true;
+		EObject obj = f.obj;
+		for (EStructuralFeature feat : obj.eClass().getEAllStructuralFeatures()) {
+			if (feat.isTransient() || !feat.isMany() || feat instanceof EReference || !obj.eIsSet(feat)) {
+				continue;
+			}
+			EAttribute attr = (EAttribute) feat;
+			for (Object value : (List<?>) obj.eGet(attr)) {
+				if (value == null) {
+					continue;
+				}
+				content(f);
+				indent(f.depth + 1);
+				out.write('<');
+				out.write(attr.getName());
+				out.write('>');
+				escape(EcoreUtil.convertToString(attr.getEAttributeType(), value), false);
+				out.write("</");
+				out.write(attr.getName());
+				out.write('>');
+			}
+		}
+		for (EReference ref : obj.eClass().getEAllContainments()) {
+			if (ref.isTransient() || !obj.eIsSet(ref)) {
+				continue;
+			}
+			if (ref.isMany()) {
+				List<?> children = (List<?>) obj.eGet(ref, false);
+				for (int i = 0; i < children.size(); i++) {
+					content(f);
+					tree(f, ref, (EObject) children.get(i), i);
+				}
+				f.count(ref, children.size());
+			} else {
+				content(f);
+				tree(f, ref, (EObject) obj.eGet(ref, false), 0);
+				f.count(ref, 1);
+			}
+		}
+	}
+
+	private void tree(Frame parent, EReference feature, EObject obj, int index) throws IOException {
+		Frame f = begin(parent, feature, obj, index);
+		body(f);
+		close(f);
+	}
+
+	private void content(Frame f) throws IOException {
+		if (!f.tagClosed) {
+			f.tagClosed = true;
+			out.write('>');
+		}
+	}
+
+	private void close(Frame f) throws IOException {
+		if (f.tagClosed) {
+			indent(f.depth);
+			out.write("</");
+			out.write(f.tag);
+			out.write('>');
+		} else {
+			out.write("/>");
+		}
+	}
+
+	private String reference(EObject target) {
+		Resource res = target.eResource();
+		if (target.eIsProxy() || (res != null && res != resource)) {
+			URI uri = EcoreUtil.getURI(target);
+			if (base != null && uri.isHierarchical() && !uri.isRelative()) {
+				uri = uri.deresolve(base);
+			}
+			return uri.toString();
+		}
+		String id = EcoreUtil.getID(target);
+		if (id != null) {
+			return id;
+		}
+		String path = written.get(target);
+		if (path != null) {
+			return path;
+		}
+		id = pending.get(target);
+		if (id == null) {
+			id = "_" + ids++;
+			pending.put(target, id);
+		}
+		return id;
+	}
+
+	private boolean inScope(Frame f, EPackage pack) {
+		for (; f != null; f = f.parent) {
+			if (f.declared == pack) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private String prefix(EPackage pack) {
+		String prefix = prefixes.get(pack);
+		if (prefix == null) {
+			String base = pack.getNsPrefix() == null || pack.getNsPrefix().isEmpty() ? "p" : pack.getNsPrefix();
+			prefix = base;
+			for (int i = 1; usedPrefixes.contains(prefix) || "xmi".equals(prefix) || "xsi".equals(prefix); i++) {
+				prefix = base + "_" + i;
+			}
+			usedPrefixes.add(prefix);
+			prefixes.put(pack, prefix);
+		}
+		return prefix;
+	}
+
+	private void indent(int depth) throws IOException {
+		out.write('\n');
+		for (int i = 0; i < depth; i++) {
+			out.write("  ");
+		}
+	}
+
+	private void attribute(String name, String value) throws IOException {
+		out.write(' ');
+		out.write(name);
+		out.write("=\"");
+		escape(value, true);
+		out.write('"');
+	}
+
+	private void escape(String value, boolean attribute) throws IOException {
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			switch (c) {
+			case '&':
+				out.write("&amp;");
+				break;
+			case '<':
+				out.write("&lt;");
+				break;
+			case '>':
+				out.write("&gt;");
+				break;
+			case '"':
+				out.write(attribute ? "&quot;" : "\"");
+				break;
+			case '\r':
+				out.write("&#xD;");
+				break;
+			case '\n':
+				out.write(attribute ? "&#xA;" : "\n");
+				break;
+			case '\t':
+				out.write(attribute ? "&#x9;" : "\t");
+				break;
+			default:
+				out.write(c);
+			}
+		}
+	}
+}
@@ -0,0 +1,114 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2016 Vincent Aranega
+ *
+ * See the file LICENSE for copying permission.
+ *******************************************************************************/
+package org.dynemf;
+
+import static org.dynemf.ResourceSetWrapper.rset;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import org.eclipse.emf.ecore.EPackage;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class AsyncSavesTest {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	// Saves are only run when the test asks for it
+	private final List<Runnable> tasks = new ArrayList<>();
+	private final Executor executor = tasks::add;
+
+	private EPackage pack;
+
+	@Before
+	public void setUp() {
+		pack = Fixtures.nodes();
+	}
+
+	private ResourceWrapper create(String name) {
+		ResourceSetWrapper rset = rset().register(pack);
+		return rset.create(new File(folder.getRoot(), name).getPath()).add(rset.ePackage(Fixtures.NODES).create("Node"));
+	}
+
+	private List<?> reload(ResourceWrapper r) {
+		return (List<?>) rset().register(pack).open(r.result().getURI()).root().property("tags").result();
+	}
+
+	private void runNext() {
+		tasks.remove(0).run();
+	}
+
+	@Test
+	public void savesRequestedWhileRunningAreCoalesced() throws Exception {
+		ResourceWrapper r = create("root.xmi");
+		r.root().add("tags", "one");
+		CompletableFuture<ResourceWrapper> first = r.saveAsync(null, executor);
+		List<CompletableFuture<ResourceWrapper>> next = new ArrayList<>();
+		for (String tag : new String[] { "two", "three", "four" }) {
+			r.root().add("tags", tag);
+			next.add(r.saveAsync(null, executor));
+		}
+		assertEquals(1, tasks.size());
+
+		runNext();
+		assertSame(r, first.get());
+		assertEquals(Arrays.asList("one"), reload(r));
+		for (CompletableFuture<ResourceWrapper> future : next) {
+			assertFalse(future.isDone());
+		}
+
+		// A single save writes the last snapshot
+		assertEquals(1, tasks.size());
+		runNext();
+		assertTrue(tasks.isEmpty());
+		for (CompletableFuture<ResourceWrapper> future : next) {
+			assertSame(r, future.get());
+		}
+		assertEquals(Arrays.asList("one", "two", "three", "four"), reload(r));
+	}
+
+	@Test
+	public void savesOfDistinctUrisAreNotCoalesced() throws Exception {
+		ResourceWrapper a = create("a.xmi");
+		ResourceWrapper b = create("b.xmi");
+		a.root().add("tags", "a");
+		b.root().add("tags", "b");
+		CompletableFuture<ResourceWrapper> fa = a.saveAsync(null, executor);
+		CompletableFuture<ResourceWrapper> fb = b.saveAsync(null, executor);
+		assertEquals(2, tasks.size());
+
+		runNext();
+		runNext();
+		assertSame(a, fa.get());
+		assertSame(b, fb.get());
+		assertEquals(Arrays.asList("a"), reload(a));
+		assertEquals(Arrays.asList("b"), reload(b));
+	}
+
+	@Test
+	public void aSaveAfterTheRunningOneEndsIsNotCoalesced() throws Exception {
+		ResourceWrapper r = create("root.xmi");
+		r.saveAsync(null, executor);
+		runNext();
+
+		r.root().add("tags", "one");
+		r.saveAsync(null, executor);
+		assertEquals(1, tasks.size());
+		runNext();
+		assertEquals(Arrays.asList("one"), reload(r));
+	}
+}
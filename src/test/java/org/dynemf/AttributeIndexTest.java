@@ -0,0 +1,54 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2016 Vincent Aranega
+ *
+ * See the file LICENSE for copying permission.
+ *******************************************************************************/
+package org.dynemf;
+
+import static org.dynemf.Condition.eq;
+import static org.dynemf.ResourceSetWrapper.rset;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class AttributeIndexTest {
+	private static final String NS_URI = Fixtures.NODES;
+
+	private ResourceSetWrapper rset;
+	private EPackageWrapper mm;
+	private EObjectWrapper<?> root;
+
+	@Before
+	public void setUp() {
+		rset = rset().register(Fixtures.nodes());
+		mm = rset.ePackage(NS_URI);
+		root = mm.create("NodeA");
+		rset.create("nodes.xmi").add(root);
+	}
+
+	@Test
+	public void siblingInstancesAreNotIndexed() {
+		AttributeIndex index = rset.index(NS_URI, "NodeA", "name");
+		EObjectWrapper<?> b = mm.create("NodeB");
+		root.add("children", b);
+		b.set("name", "x");
+
+		assertEquals(0, index.get("x").size());
+
+		root.add("children", mm.create("NodeA").set("name", "x"));
+		assertEquals(1, index.get("x").size());
+	}
+
+	@Test
+	public void indexedQueriesKeepTheirType() {
+		rset.index(NS_URI, "NodeA", "name");
+		rset.index(NS_URI, "Node", "name");
+		root.add("children", mm.create("NodeB").set("name", "x"));
+		root.add("children", mm.create("NodeA").set("name", "x"));
+
+		assertEquals(1, rset.query("NodeA").where("name", eq("x")).count());
+		assertEquals(1, rset.query("NodeB").where("name", eq("x")).count());
+		assertEquals(2, rset.query("Node").where("name", eq("x")).count());
+	}
+}
@@ -0,0 +1,151 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2016 Vincent Aranega
+ *
+ * See the file LICENSE for copying permission.
+ *******************************************************************************/
+package org.dynemf;
+
+import static org.dynemf.ResourceSetWrapper.rset;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.emf.ecore.EPackage;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ConcurrencyTest {
+	private static final String NS_URI = Fixtures.SIMPLE;
+	private static final int THREADS = 8;
+	private static final int ROUNDS = 2000;
+
+	// Two versions of the same metamodel
+	private final EPackage[] versions = { Fixtures.simple(), Fixtures.simple() };
+	private ResourceSetWrapper rset;
+	private ExecutorService pool;
+
+	@Before
+	public void setUp() {
+		rset = rset().register(versions[0]);
+		pool = Executors.newFixedThreadPool(THREADS);
+	}
+
+	@After
+	public void tearDown() throws InterruptedException {
+		pool.shutdownNow();
+		pool.awaitTermination(10, TimeUnit.SECONDS);
+	}
+
+	/*
+	 * Submits the tasks behind a common gate and rethrows the first failure.
+	 */
+	private <T> List<T> run(List<Callable<T>> tasks) throws Exception {
+		final CountDownLatch gate = new CountDownLatch(1);
+		List<Future<T>> futures = new ArrayList<>();
+		for (final Callable<T> task : tasks) {
+			futures.add(pool.submit(() -> {
+				gate.await();
+				return task.call();
+			}));
+		}
+		gate.countDown();
+		List<T> results = new ArrayList<>();
+		for (Future<T> future : futures) {
+			results.add(future.get(60, TimeUnit.SECONDS));
+		}
+		return results;
+	}
+
+	@Test
+	public void ePackageHandsOutASingleWrapper() throws Exception {
+		for (int round = 0; round < ROUNDS / THREADS; round++) {
+			final ResourceSetWrapper fresh = rset().register(versions[0]);
+			final CyclicBarrier barrier = new CyclicBarrier(THREADS);
+			List<Callable<EPackageWrapper>> tasks = new ArrayList<>();
+			for (int i = 0; i < THREADS; i++) {
+				tasks.add(() -> {
+					barrier.await();
+					return fresh.ePackage(NS_URI);
+				});
+			}
+			// EPackageWrapper equality compares the wrapped EPackage
+			Set<EPackageWrapper> wrappers = Collections.newSetFromMap(new IdentityHashMap<EPackageWrapper, Boolean>());
+			wrappers.addAll(run(tasks));
+
+			assertEquals(1, wrappers.size());
+			assertSame(fresh.ePackage(NS_URI), wrappers.iterator().next());
+		}
+	}
+
+	@Test
+	public void registerWhileCreating() throws Exception {
+		final EPackageWrapper mm = rset.ePackage(NS_URI);
+		List<Callable<Object>> tasks = new ArrayList<>();
+		for (int i = 0; i < ROUNDS; i++) {
+			final EPackage version = versions[i % 2];
+			if (i % 4 == 0) {
+				tasks.add(() -> rset.register(version));
+			} else {
+				tasks.add(() -> {
+					assertSame(mm, rset.ePackage(NS_URI));
+					EObjectWrapper<?> node = mm.create("A").set("name", "n");
+					EPackage pack = node.result().eClass().getEPackage();
+					assertTrue(pack == versions[0] || pack == versions[1]);
+					return node;
+				});
+			}
+		}
+		run(tasks);
+
+		rset.register(versions[1]);
+		assertSame(mm, rset.ePackage(NS_URI));
+		assertSame(versions[1], mm.result());
+		assertSame(versions[1], mm.create("A").result().eClass().getEPackage());
+	}
+
+	@Test
+	public void createResourcesConcurrently() throws Exception {
+		final EPackageWrapper mm = rset.ePackage(NS_URI);
+		List<Callable<ResourceWrapper>> tasks = new ArrayList<>();
+		for (int i = 0; i < ROUNDS; i++) {
+			final String path = "model" + i + ".xmi";
+			tasks.add(() -> rset.create(path).add(mm.create("A").set("name", path)));
+		}
+		run(tasks);
+
+		List<Resource> resources = rset.result().getResources();
+		assertEquals(ROUNDS, resources.size());
+		Set<Object> uris = new HashSet<>();
+		for (Resource r : resources) {
+			uris.add(r.getURI());
+			assertEquals(1, r.getContents().size());
+		}
+		assertEquals(ROUNDS, uris.size());
+	}
+
+	@Test
+	public void callerLockOnTheResourceSetDoesNotBlock() throws Exception {
+		final EPackageWrapper mm = rset.ePackage(NS_URI);
+		synchronized (rset.result()) {
+			ResourceWrapper r = pool.submit(() -> rset.create("locked.xmi").add(mm.create("A"))).get(10,
+					TimeUnit.SECONDS);
+			assertEquals(1, r.result().getContents().size());
+		}
+	}
+}
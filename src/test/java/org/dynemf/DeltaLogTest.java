@@ -0,0 +1,121 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2016 Vincent Aranega
+ *
+ * See the file LICENSE for copying permission.
+ *******************************************************************************/
+package org.dynemf;
+
+import static org.dynemf.ResourceSetWrapper.rset;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.List;
+
+import org.eclipse.emf.common.util.EList;
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EPackage;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class DeltaLogTest {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private EPackage pack;
+	private String path;
+	private ResourceSetWrapper source;
+	private ResourceSetWrapper replica;
+	private EPackageWrapper mm;
+
+	@Before
+	public void setUp() throws Exception {
+		pack = Fixtures.nodes();
+		path = new File(folder.getRoot(), "nodes.xmi").getPath();
+		ResourceSetWrapper rset = rset().register(pack);
+		rset.ePackage(Fixtures.NODES).generator().seed(5).size(100).fanOut(3).depth(3).references(0.5)
+				.generate(rset.create(path)).save();
+
+		source = rset().register(pack);
+		source.open(path);
+		replica = rset().register(pack);
+		replica.open(path);
+		mm = source.ePackage(Fixtures.NODES);
+	}
+
+	private void assertReplicated() {
+		List<Resource> expected = source.result().getResources();
+		List<Resource> actual = replica.result().getResources();
+		assertEquals(expected.size(), actual.size());
+		for (int i = 0; i < expected.size(); i++) {
+			assertEquals(expected.get(i).getURI(), actual.get(i).getURI());
+			assertTrue(EcoreUtil.equals(expected.get(i).getContents(), actual.get(i).getContents()));
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static EList<EObject> list(EObject obj, EStructuralFeature feature) {
+		return (EList<EObject>) obj.eGet(feature);
+	}
+
+	@Test
+	public void replayedLogReplicatesTheChanges() throws Exception {
+		EStructuralFeature children = mm.feature("Node", "children");
+		EStructuralFeature links = mm.feature("Node", "links");
+		DeltaLog log = source.record();
+		assertTrue(log.isEmpty());
+
+		EList<EObject> roots = source.open(path).result().getContents();
+		EObject root = roots.get(0);
+		EObjectWrapper<?> root0 = EObjectWrapper.obj(root);
+		root0.set("name", "renamed").add("tags", "added");
+		EObjectWrapper<?> added = mm.create("NodeA").set("name", "new").add("tags", "t");
+		list(root, children).add(0, added.result());
+		list(added.result(), links).add(roots.get(roots.size() - 1));
+		list(root, links).clear();
+		EList<EObject> last = list(roots.get(roots.size() - 1), children);
+		if (!last.isEmpty()) {
+			last.remove(last.size() - 1);
+		}
+		roots.add(mm.create("NodeB").set("name", "root").result());
+		assertFalse(log.isEmpty());
+
+		replica.apply(log.flush());
+		assertTrue(log.isEmpty());
+		assertReplicated();
+	}
+
+	@Test
+	public void successiveFlushesAreAppliedInOrder() throws Exception {
+		DeltaLog log = source.record();
+		EObjectWrapper<?> root = source.open(path).root();
+
+		root.set("name", "first");
+		byte[] first = log.flush();
+		root.set("name", "second").add("tags", "t");
+		byte[] second = log.flush();
+
+		replica.apply(first);
+		assertEquals("first", replica.open(path).root().property("name").result());
+		replica.apply(second);
+		assertReplicated();
+	}
+
+	@Test
+	public void createdResourcesAreCreatedByTheReplica() throws Exception {
+		String other = new File(folder.getRoot(), "other.xmi").getPath();
+		DeltaLog log = source.record();
+		source.create(other).add(mm.create("Node").set("name", "other"));
+
+		replica.apply(log.flush());
+		assertReplicated();
+		assertEquals("other", replica.open(URI.createFileURI(other)).root().property("name").result());
+	}
+}
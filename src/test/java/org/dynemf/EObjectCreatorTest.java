@@ -0,0 +1,51 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2016 Vincent Aranega
+ *
+ * See the file LICENSE for copying permission.
+ *******************************************************************************/
+package org.dynemf;
+
+import static org.dynemf.ResourceSetWrapper.rset;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.eclipse.emf.common.util.EList;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.junit.Before;
+import org.junit.Test;
+
+public class EObjectCreatorTest {
+	private EPackageWrapper mm;
+
+	@Before
+	public void setUp() {
+		mm = rset().register(Fixtures.simple()).ePackage(Fixtures.SIMPLE);
+	}
+
+	@Test
+	public void createFromASingleColumn() {
+		EList<EObject> as = mm.creator("A").create(3, new String[] { "name" },
+				new Object[] { new String[] { "a1", "a2", "a3" } });
+
+		EStructuralFeature name = mm.feature("A", "name");
+		List<Object> names = new ArrayList<>();
+		for (EObject a : as) {
+			names.add(a.eGet(name));
+		}
+		assertEquals(Arrays.asList("a1", "a2", "a3"), names);
+	}
+
+	@Test(expected = RuntimeException.class)
+	public void missingColumnsAreRejected() {
+		mm.creator("A").create(3, new String[] { "name" }, new Object[0]);
+	}
+
+	@Test(expected = RuntimeException.class)
+	public void shortColumnsAreRejected() {
+		mm.creator("A").create(3, new String[] { "name" }, new Object[] { new String[] { "a1" } });
+	}
+}
@@ -0,0 +1,60 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2016 Vincent Aranega
+ *
+ * See the file LICENSE for copying permission.
+ *******************************************************************************/
+package org.dynemf;
+
+import static org.dynemf.ResourceSetWrapper.rset;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import org.eclipse.emf.ecore.EEnum;
+import org.eclipse.emf.ecore.EPackage;
+import org.eclipse.emf.ecore.EcoreFactory;
+import org.junit.Before;
+import org.junit.Test;
+
+public class EPackageWrapperTest {
+	private EPackage pack;
+	private EPackageWrapper mm;
+
+	@Before
+	public void setUp() {
+		pack = Fixtures.simple();
+		EEnum kind = EcoreFactory.eINSTANCE.createEEnum();
+		kind.setName("Kind");
+		pack.getEClassifiers().add(kind);
+		mm = rset().register(pack).ePackage(Fixtures.SIMPLE);
+	}
+
+	@Test
+	public void metaClassesAreResolved() {
+		assertSame(pack.getEClassifier("A"), mm.eClass("A"));
+		assertEquals("name", mm.feature("A", "name").getName());
+		assertNull(mm.feature("A", "unknown"));
+	}
+
+	@Test
+	public void dataTypesAreNotMetaClasses() {
+		assertNull(mm.eClass("Kind"));
+		assertNull(mm.eClass("Unknown"));
+	}
+
+	private void assertRejected(String ename) {
+		try {
+			mm.feature(ename, "name");
+			fail();
+		} catch (RuntimeException e) {
+			assertEquals("Meta-class '" + ename + "' does not exist", e.getMessage());
+		}
+	}
+
+	@Test
+	public void featuresOfUnknownMetaClassesAreRejected() {
+		assertRejected("Unknown");
+		assertRejected("Kind");
+	}
+}
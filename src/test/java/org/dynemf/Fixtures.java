@@ -0,0 +1,58 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2016 Vincent Aranega
+ *
+ * See the file LICENSE for copying permission.
+ *******************************************************************************/
+package org.dynemf;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EPackage;
+import org.eclipse.emf.ecore.resource.Resource;
+
+/**
+ * Metamodels shared by the tests (see src/test/resources/metamodels). Each
+ * call loads a new copy of the metamodel, so the tests can register or
+ * modify it freely.
+ * <ul>
+ * <li>simple.ecore: A (a*: A, name)</li>
+ * <li>nodes.ecore: Node (name, tags* non-unique, children*: Node, links*:
+ * Node) and its sub-classes NodeA and NodeB</li>
+ * </ul>
+ *
+ * @author Vincent Aranega
+ *
+ */
+final class Fixtures {
+	static final String SIMPLE = "http://DynEMF/simple/1.0";
+	static final String NODES = "http://DynEMF/nodes/1.0";
+	static final String METAMODELS = "src/test/resources/metamodels/";
+
+	private Fixtures() {
+	}
+
+	static EPackage simple() {
+		return load("simple.ecore");
+	}
+
+	static EPackage nodes() {
+		return load("nodes.ecore");
+	}
+
+	/**
+	 * Loads a new copy of a metamodel under another nsURI.
+	 *
+	 * @param file the metamodel file name
+	 * @param nsUri the nsURI given to the copy
+	 * @return the loaded EPackage
+	 */
+	static EPackage load(String file, String nsUri) {
+		EPackage pack = load(file);
+		pack.setNsURI(nsUri);
+		return pack;
+	}
+
+	private static EPackage load(String file) {
+		Resource r = ResourceSetWrapper.rset().result().getResource(URI.createFileURI(METAMODELS + file), true);
+		return (EPackage) r.getContents().get(0);
+	}
+}
@@ -0,0 +1,54 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2016 Vincent Aranega
+ *
+ * See the file LICENSE for copying permission.
+ *******************************************************************************/
+package org.dynemf;
+
+import static org.dynemf.ResourceSetWrapper.rset;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+
+import org.eclipse.emf.ecore.EPackage;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class IOProfileTest {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private EPackage pack;
+
+	@Before
+	public void setUp() {
+		pack = Fixtures.nodes();
+	}
+
+	private String model(String name) throws Exception {
+		String path = new File(folder.getRoot(), name).getPath();
+		ResourceSetWrapper rset = rset().register(pack);
+		rset.ePackage(Fixtures.NODES).generator().seed(9).size(50).fanOut(3).depth(3).generate(rset.create(path))
+				.save();
+		return path;
+	}
+
+	@Test
+	public void loadedElementsAreNotifiedWithEveryProfile() throws Exception {
+		for (String path : new String[] { model("nodes.xmi"), model("nodes.bin") }) {
+			for (IOProfile profile : IOProfile.values()) {
+				ResourceSetWrapper rset = rset().register(pack).profile(profile).index().trackChanges();
+				ResourceWrapper r = rset.open(path);
+
+				assertEquals(profile + " " + path, 50, rset.allInstances("Node").size());
+				assertFalse(r.isDirty());
+				r.root().set("name", "changed");
+				assertTrue(profile + " " + path, r.isDirty());
+			}
+		}
+	}
+}
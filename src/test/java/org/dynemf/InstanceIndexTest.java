@@ -0,0 +1,70 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2016 Vincent Aranega
+ *
+ * See the file LICENSE for copying permission.
+ *******************************************************************************/
+package org.dynemf;
+
+import static org.dynemf.ResourceSetWrapper.rset;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.eclipse.emf.ecore.EFactory;
+import org.eclipse.emf.ecore.EPackage;
+import org.junit.Test;
+
+public class InstanceIndexTest {
+
+	@Test
+	public void ambiguousNamesAreRejected() {
+		ResourceSetWrapper rset = rset().register(Fixtures.load("simple.ecore", "http://DynEMF/simple/a"))
+				.register(Fixtures.load("simple.ecore", "http://DynEMF/simple/b"));
+		rset.create("simple.xmi").add(rset.ePackage("http://DynEMF/simple/a").create("A"));
+		try {
+			rset.index().allInstances("A");
+			fail();
+		} catch (RuntimeException e) {
+			assertTrue(e.getMessage().contains("ambiguous"));
+		}
+	}
+
+	@Test
+	public void descriptorsAreResolved() {
+		final EPackage pack = Fixtures.simple();
+		ResourceSetWrapper rset = rset();
+		rset.result().getPackageRegistry().put(pack.getNsURI(), new EPackage.Descriptor() {
+			@Override
+			public EPackage getEPackage() {
+				return pack;
+			}
+
+			@Override
+			public EFactory getEFactory() {
+				return pack.getEFactoryInstance();
+			}
+		});
+
+		assertSame(pack.getEClassifier("A"), InstanceIndex.eClass(rset.result().getPackageRegistry(), "A"));
+		assertEquals(0, rset.query("A").count());
+	}
+
+	@Test
+	public void viewsFollowLaterInstances() {
+		ResourceSetWrapper rset = rset().register(Fixtures.simple());
+		ResourceWrapper r = rset.create("simple.xmi");
+		InstanceSet as = rset.index().allInstances("A");
+		assertTrue(as.isEmpty());
+
+		EObjectWrapper<?> a = rset.ePackage(Fixtures.SIMPLE).create("A");
+		r.add(a);
+		assertEquals(1, as.size());
+		assertTrue(as.includes(a));
+
+		r.result().getContents().clear();
+		assertTrue(as.isEmpty());
+		r.add(a);
+		assertEquals(1, as.size());
+	}
+}
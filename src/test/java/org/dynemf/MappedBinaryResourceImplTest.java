@@ -0,0 +1,49 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2016 Vincent Aranega
+ *
+ * See the file LICENSE for copying permission.
+ *******************************************************************************/
+package org.dynemf;
+
+import static org.dynemf.ResourceSetWrapper.rset;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import org.eclipse.emf.ecore.EPackage;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class MappedBinaryResourceImplTest {
+	private static final String NS_URI = Fixtures.SIMPLE;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private static boolean mapped(String path) throws Exception {
+		return new String(Files.readAllBytes(Paths.get("/proc/self/maps")), StandardCharsets.UTF_8).contains(path);
+	}
+
+	@Test
+	public void mappingIsReleasedOnceLoaded() throws Exception {
+		assumeTrue(new File("/proc/self/maps").isFile());
+		EPackage pack = Fixtures.simple();
+		String path = new File(folder.getRoot(), "root.bin").getCanonicalPath();
+		ResourceSetWrapper rset = rset().register(pack).profile(IOProfile.FAST_LOAD);
+		rset.create(path).add(rset.ePackage(NS_URI).create("A")).save();
+
+		ResourceWrapper r = rset().register(pack).profile(IOProfile.FAST_LOAD).open(path);
+		assertFalse(mapped(path));
+
+		r.add(rset.ePackage(NS_URI).create("A")).save();
+		ResourceWrapper reloaded = rset().register(pack).profile(IOProfile.FAST_LOAD).open(path);
+		assertEquals(2, reloaded.result().getContents().size());
+		assertFalse(mapped(path));
+	}
+}
@@ -0,0 +1,62 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2016 Vincent Aranega
+ *
+ * See the file LICENSE for copying permission.
+ *******************************************************************************/
+package org.dynemf;
+
+import static org.dynemf.ResourceSetWrapper.rset;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Iterator;
+import java.util.List;
+
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ModelGeneratorTest {
+	private ResourceSetWrapper rset;
+	private EPackageWrapper mm;
+
+	@Before
+	public void setUp() {
+		rset = rset().register(Fixtures.nodes());
+		mm = rset.ePackage(Fixtures.NODES);
+	}
+
+	@Test
+	public void zeroFanOutWithReferences() {
+		ResourceWrapper r = mm.generator().seed(1).size(50).fanOut(0).depth(3).references(1.0)
+				.generate(rset.create("generated.xmi"));
+
+		EStructuralFeature children = mm.feature("Node", "children");
+		EStructuralFeature links = mm.feature("Node", "links");
+		EStructuralFeature tags = mm.feature("Node", "tags");
+		int count = 0;
+		for (Iterator<EObject> it = r.result().getAllContents(); it.hasNext(); count++) {
+			EObject o = it.next();
+			assertEquals(0, ((List<?>) o.eGet(children)).size());
+			assertEquals(0, ((List<?>) o.eGet(links)).size());
+			assertEquals(0, ((List<?>) o.eGet(tags)).size());
+		}
+		assertEquals(50, count);
+		assertEquals(50, r.result().getContents().size());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void negativeFanOutIsRejected() {
+		mm.generator().fanOut(-1);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void negativeSizeIsRejected() {
+		mm.generator().size(-1);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void negativeDepthIsRejected() {
+		mm.generator().depth(-1);
+	}
+}
@@ -0,0 +1,102 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2016 Vincent Aranega
+ *
+ * See the file LICENSE for copying permission.
+ *******************************************************************************/
+package org.dynemf;
+
+import static org.dynemf.ResourceSetWrapper.rset;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ParallelVisitTest {
+	private final ForkJoinPool pool = new ForkJoinPool(4);
+	private ResourceSetWrapper rset;
+	private ResourceWrapper wide;
+
+	@Before
+	public void setUp() {
+		rset = rset().register(Fixtures.nodes());
+		EPackageWrapper mm = rset.ePackage(Fixtures.NODES);
+		wide = mm.generator().seed(11).size(5000).fanOut(8).depth(6).references(0.2)
+				.generate(rset.create("wide.xmi"));
+		mm.generator().seed(12).size(300).fanOut(2).depth(10).generate(rset.create("deep.xmi"));
+		mm.generator().seed(13).size(200).fanOut(0).generate(rset.create("flat.xmi"));
+		rset.create("empty.xmi");
+	}
+
+	@After
+	public void tearDown() {
+		pool.shutdown();
+	}
+
+	/*
+	 * Counts the elements of the resources with a sequential walk.
+	 */
+	private static Map<EObject, Integer> expected(Iterable<Resource> resources) {
+		Map<EObject, Integer> expected = new HashMap<>();
+		for (Resource resource : resources) {
+			for (Iterator<EObject> it = resource.getAllContents(); it.hasNext();) {
+				expected.put(it.next(), 1);
+			}
+		}
+		return expected;
+	}
+
+	private static EObjectVisitor counter(final ConcurrentMap<EObject, Integer> visits) {
+		return obj -> visits.merge(obj.result(), 1, Integer::sum);
+	}
+
+	@Test
+	public void resourceSetVisitsEachElementOnce() {
+		ConcurrentMap<EObject, Integer> visits = new ConcurrentHashMap<>();
+		rset.parallelVisit(counter(visits), pool);
+
+		Map<EObject, Integer> expected = expected(rset.result().getResources());
+		assertEquals(5500, expected.size());
+		assertEquals(expected, visits);
+	}
+
+	@Test
+	public void resourceVisitsEachElementOnce() {
+		ConcurrentMap<EObject, Integer> visits = new ConcurrentHashMap<>();
+		wide.parallelVisit(counter(visits), pool);
+
+		assertEquals(expected(Collections.singleton(wide.result())), visits);
+	}
+
+	/*
+	 * Counts the elements of a parallel stream in the pool of the test.
+	 */
+	private Map<EObject, Long> counts(Stream<EObjectWrapper<?>> elements) throws Exception {
+		return pool.submit(() -> elements.parallel()
+				.collect(Collectors.groupingByConcurrent(obj -> (EObject) obj.result(), Collectors.counting()))).get();
+	}
+
+	@Test
+	public void parallelStreamsHoldEachElementOnce() throws Exception {
+		Map<EObject, Long> elements = counts(rset.elements());
+		Map<EObject, Long> ofWide = counts(wide.elements());
+
+		Map<EObject, Long> expected = new HashMap<>();
+		expected(rset.result().getResources()).forEach((obj, n) -> expected.put(obj, 1L));
+		assertEquals(expected, elements);
+		assertEquals(5000, ofWide.size());
+		assertEquals(1L, (long) ofWide.values().stream().max(Long::compare).get());
+	}
+}
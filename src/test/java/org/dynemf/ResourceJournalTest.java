@@ -0,0 +1,87 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2016 Vincent Aranega
+ *
+ * See the file LICENSE for copying permission.
+ *******************************************************************************/
+package org.dynemf;
+
+import static org.dynemf.ResourceSetWrapper.rset;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+
+import org.eclipse.emf.ecore.EPackage;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ResourceJournalTest {
+	private static final String NS_URI = Fixtures.NODES;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private EPackage pack;
+	private String path;
+
+	@Before
+	public void setUp() throws Exception {
+		pack = Fixtures.nodes();
+		path = new File(folder.getRoot(), "root.bin").getPath();
+		ResourceSetWrapper rset = rset().register(pack);
+		rset.create(path).add(rset.ePackage(NS_URI).create("Node")).save();
+	}
+
+	private List<?> reload() {
+		return (List<?>) rset().register(pack).open(path).root().property("tags").result();
+	}
+
+	@Test
+	public void asyncSaveDiscardsJournaledChanges() throws Exception {
+		ResourceWrapper r = rset().register(pack).open(path).journal();
+		r.root().add("tags", "one");
+		r.saveAsync().get();
+		r.saveDirty();
+
+		assertFalse(new File(path + "." + ResourceJournal.EXTENSION).exists());
+		assertEquals(Arrays.asList("one"), reload());
+	}
+
+	@Test
+	public void changesAfterAsyncSaveAreJournaledOnce() throws Exception {
+		ResourceWrapper r = rset().register(pack).open(path).journal();
+		r.root().add("tags", "one");
+		r.saveAsync();
+		r.root().add("tags", "two");
+		r.saveDirty();
+
+		assertEquals(Arrays.asList("one", "two"), reload());
+	}
+
+	@Test
+	public void nonBinaryResourcesAreSavedAsAWhole() throws Exception {
+		String xmi = new File(folder.getRoot(), "root.xmi").getPath();
+		ResourceSetWrapper rset = rset().register(pack);
+		rset.create(xmi).add(rset.ePackage(NS_URI).create("Node")).save();
+
+		rset = rset().register(pack);
+		ResourceWrapper bin = rset.open(path);
+		ResourceWrapper other = rset.open(xmi).journal();
+		rset.journal();
+		bin.root().add("tags", "one");
+		other.root().add("tags", "two");
+		assertEquals(2, rset.dirty().size());
+		rset.saveDirty();
+
+		assertTrue(new File(path + "." + ResourceJournal.EXTENSION).exists());
+		assertFalse(new File(xmi + "." + ResourceJournal.EXTENSION).exists());
+		assertEquals(0, rset.dirty().size());
+		assertEquals(Arrays.asList("one"), reload());
+		assertEquals(Arrays.asList("two"), rset().register(pack).open(xmi).root().property("tags").result());
+	}
+}
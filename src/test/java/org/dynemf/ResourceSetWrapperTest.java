@@ -0,0 +1,81 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2016 Vincent Aranega
+ *
+ * See the file LICENSE for copying permission.
+ *******************************************************************************/
+package org.dynemf;
+
+import static org.dynemf.ResourceSetWrapper.rset;
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EPackage;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ResourceSetWrapperTest {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private EPackage simple;
+
+	@Before
+	public void setUp() {
+		simple = Fixtures.simple();
+	}
+
+	private URI model(String name) throws Exception {
+		String path = new File(folder.getRoot(), name).getPath();
+		ResourceSetWrapper rset = rset().register(simple);
+		rset.create(path).add(rset.ePackage(Fixtures.SIMPLE).create("A").set("name", name)).save();
+		return URI.createFileURI(path);
+	}
+
+	private static List<URI> uris(ResourceBatch batch) {
+		List<URI> uris = new ArrayList<>();
+		for (ResourceWrapper r : batch.resources()) {
+			uris.add(r.result().getURI());
+		}
+		return uris;
+	}
+
+	@Test
+	public void openAllKeepsTheOrderAndReportsFailures() throws Exception {
+		URI a = model("a.xmi");
+		URI b = model("b.bin");
+		URI c = model("c.xmi.gz");
+		URI missing = URI.createFileURI(new File(folder.getRoot(), "missing.xmi").getPath());
+		// An Ecore model, whose metamodel is only in the global registry
+		URI ecore = URI.createFileURI(new File(Fixtures.METAMODELS + "simple.ecore").getAbsolutePath());
+
+		ResourceBatch batch = rset().register(simple).openAll(Arrays.asList(a, missing, ecore, b, c));
+
+		assertEquals(Arrays.asList(a, ecore, b, c), uris(batch));
+		assertEquals(Arrays.asList(missing), new ArrayList<>(batch.failures().keySet()));
+		assertEquals("a.xmi", batch.resources().get(0).root().property("name").result());
+		assertEquals("simple", ((EPackage) batch.resources().get(1).result().getContents().get(0)).getName());
+		assertEquals("b.bin", batch.resources().get(2).root().property("name").result());
+		assertEquals("c.xmi.gz", batch.resources().get(3).root().property("name").result());
+	}
+
+	@Test
+	public void openAllAttachesToTheResourceSet() throws Exception {
+		URI a = model("a.xmi");
+		URI b = model("b.xmi");
+		ResourceSetWrapper rset = rset().register(simple);
+		ResourceWrapper opened = rset.open(a);
+
+		ResourceBatch batch = rset.openAll(Arrays.asList(a, b));
+
+		assertEquals(Arrays.asList(a, b), uris(batch));
+		assertEquals(opened.result(), batch.resources().get(0).result());
+		assertEquals(2, rset.result().getResources().size());
+	}
+}
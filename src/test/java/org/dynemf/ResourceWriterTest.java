@@ -0,0 +1,117 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2016 Vincent Aranega
+ *
+ * See the file LICENSE for copying permission.
+ *******************************************************************************/
+package org.dynemf;
+
+import static org.dynemf.ResourceSetWrapper.rset;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.eclipse.emf.common.util.EList;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EPackage;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ResourceWriterTest {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private EPackage pack;
+	private EList<EObject> model;
+
+	@Before
+	public void setUp() {
+		pack = Fixtures.nodes();
+		ResourceSetWrapper rset = rset().register(pack);
+		EPackageWrapper mm = rset.ePackage(Fixtures.NODES);
+		model = mm.generator().seed(3).size(200).fanOut(3).depth(3).references(0.5)
+				.generate(rset.create("generated.xmi")).result().getContents();
+		// Non-containment references are written too
+		EStructuralFeature links = mm.feature("Node", "links");
+		assertTrue(rset.query("Node").where(o -> !((List<?>) o.eGet(links)).isEmpty()).any());
+	}
+
+	/*
+	 * Streams an element, detaching its children first as the writer places
+	 * them itself.
+	 */
+	private static void stream(ResourceWriter writer, EReference feature, EObject obj) throws Exception {
+		List<EReference> features = new ArrayList<>();
+		List<List<EObject>> children = new ArrayList<>();
+		for (EReference ref : obj.eClass().getEAllContainments()) {
+			if (ref.isMany()) {
+				@SuppressWarnings("unchecked")
+				List<EObject> list = (List<EObject>) obj.eGet(ref);
+				features.add(ref);
+				children.add(new ArrayList<>(list));
+				list.clear();
+			}
+		}
+		if (feature == null) {
+			writer.start(EObjectWrapper.obj(obj));
+		} else {
+			writer.start(feature.getName(), EObjectWrapper.obj(obj));
+		}
+		for (int i = 0; i < features.size(); i++) {
+			for (EObject child : children.get(i)) {
+				stream(writer, features.get(i), child);
+			}
+		}
+		writer.end();
+	}
+
+	private void roundTrip(String name) throws Exception {
+		String path = new File(folder.getRoot(), name).getPath();
+		Collection<EObject> copy = EcoreUtil.copyAll(model);
+		try (ResourceWriter writer = rset().register(pack).create(path).writer()) {
+			for (EObject root : copy) {
+				stream(writer, null, root);
+				assertEquals(0, writer.depth());
+			}
+		}
+
+		EList<EObject> reloaded = rset().register(pack).open(path).result().getContents();
+		assertEquals(model.size(), reloaded.size());
+		assertTrue(EcoreUtil.equals(model, reloaded));
+	}
+
+	@Test
+	public void xmiOutputReloadsAsTheModel() throws Exception {
+		roundTrip("model.xmi");
+	}
+
+	@Test
+	public void compressedXmiOutputReloadsAsTheModel() throws Exception {
+		roundTrip("model.xmi.gz");
+	}
+
+	@Test
+	public void binaryOutputReloadsAsTheModel() throws Exception {
+		roundTrip("model.bin");
+	}
+
+	@Test
+	public void wholeRootsAreWrittenWithTheirTree() throws Exception {
+		String path = new File(folder.getRoot(), "model.xmi").getPath();
+		try (ResourceWriter writer = rset().register(pack).create(path).writer()) {
+			for (EObject root : EcoreUtil.copyAll(model)) {
+				writer.write(EObjectWrapper.obj(root));
+			}
+		}
+
+		assertTrue(EcoreUtil.equals(model, rset().register(pack).open(path).result().getContents()));
+	}
+}
@@ -0,0 +1,90 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2016 Vincent Aranega
+ *
+ * See the file LICENSE for copying permission.
+ *******************************************************************************/
+package org.dynemf;
+
+import static org.dynemf.ResourceSetWrapper.rset;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EPackage;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class XMIStreamReaderTest {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private EPackage pack;
+	private String path;
+
+	@Before
+	public void setUp() throws Exception {
+		pack = Fixtures.nodes();
+		path = new File(folder.getRoot(), "nodes.xmi").getPath();
+		ResourceSetWrapper rset = rset().register(pack);
+		rset.ePackage(Fixtures.NODES).generator().seed(7).size(300).fanOut(4).depth(4)
+				.generate(rset.create(path)).save();
+	}
+
+	/*
+	 * Describes an element by its meta-class, attributes and depth.
+	 */
+	private static String describe(EObject obj) {
+		EStructuralFeature name = obj.eClass().getEStructuralFeature("name");
+		EStructuralFeature tags = obj.eClass().getEStructuralFeature("tags");
+		int depth = 0;
+		for (EObject container = obj.eContainer(); container != null; container = container.eContainer()) {
+			depth++;
+		}
+		return obj.eClass().getName() + " " + obj.eGet(name) + " " + obj.eGet(tags) + " " + depth;
+	}
+
+	/*
+	 * Lists the elements of a loaded resource children first.
+	 */
+	private static void postOrder(List<EObject> contents, List<String> result) {
+		for (EObject obj : contents) {
+			postOrder(obj.eContents(), result);
+			result.add(describe(obj));
+		}
+	}
+
+	private List<String> loaded() {
+		List<String> expected = new ArrayList<>();
+		postOrder(rset().register(pack).open(path).result().getContents(), expected);
+		return expected;
+	}
+
+	@Test
+	public void streamVisitsLikeALoadedResource() throws Exception {
+		final List<String> visited = new ArrayList<>();
+		rset().register(pack).stream(path, obj -> {
+			// Children are visited and detached before their container
+			assertTrue(obj.result().eContents().isEmpty());
+			visited.add(describe(obj.result()));
+		});
+
+		List<String> expected = loaded();
+		assertEquals(300, expected.size());
+		assertEquals(expected, visited);
+	}
+
+	@Test
+	public void resourceStreamVisitsLikeALoadedResource() throws Exception {
+		final List<String> visited = new ArrayList<>();
+		rset().register(pack).create(path).stream(obj -> visited.add(describe(obj.result())));
+
+		assertEquals(loaded(), visited);
+	}
+}